@@ -1,22 +1,108 @@
 package com.aluracursos.literalura;
 
 import com.aluracursos.literalura.principal.Principal;
+import com.aluracursos.literalura.servicios.ImportacionLotes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @SpringBootApplication
+@EnableScheduling
 public class LiteraluraApplication implements CommandLineRunner {
+	private static final String ACTUALIZACION = "--literalura.actualizacion.habilitada";
 
 	@Autowired
 	private Principal principal;
 
+	@Autowired
+	private ImportacionLotes importacionLotes;
+
+	// Apagado para levantar el contexto sin quedar esperando la consola (benchmarks, procesos sin terminal).
+	@Value("${literalura.consola.habilitada:true}")
+	private boolean consolaHabilitada;
+
+	// Con --import, --import-json o --import-catalogo la aplicación carga el archivo y termina, sin menú ni servidor web
+	// y sin la actualización programada de descargas, que si no competiría con la carga por la API y por la base.
 	public static void main(String[] args) {
-		SpringApplication.run(LiteraluraApplication.class, args);
+		SpringApplication aplicacion = new SpringApplication(LiteraluraApplication.class);
+		boolean importacion = leerImportacion(args).isPresent();
+		if (importacion) {
+			aplicacion.setWebApplicationType(WebApplicationType.NONE);
+			args = sinActualizacion(args);
+		}
+		ConfigurableApplicationContext contexto = aplicacion.run(args);
+		if (importacion) {
+			System.exit(SpringApplication.exit(contexto));
+		}
 	}
+
 	@Override
 	public void run(String... args) throws Exception {
-		principal.muestraElMenu();
+		Optional<Importacion> importacion = leerImportacion(args);
+		if (importacion.isPresent()) {
+			importar(importacion.get());
+		} else if (consolaHabilitada) {
+			principal.muestraElMenu();
+		}
+	}
+
+	private void importar(Importacion importacion) {
+		ImportacionLotes.ResultadoImportacion resultado = switch (importacion.tipo()) {
+			case TITULOS -> importacionLotes.importarTitulos(importacion.archivo());
+			case JSON -> importacionLotes.importarJson(importacion.archivo());
+			case CATALOGO -> importacionLotes.importarCatalogo(importacion.archivo());
+		};
+		System.out.printf("Leídos: %d | Encontrados: %d | Fallidos: %d | Libros nuevos: %d | Tiempo: %d ms | %.1f por segundo%n",
+				resultado.leidos(), resultado.encontrados(), resultado.fallidos(), resultado.insertados(),
+				resultado.duracion().toMillis(), resultado.leidosPorSegundo());
+	}
+
+	// Si el usuario no la pidió explícitamente, apaga la actualización programada; un argumento repetido llegaría a
+	// Spring como "false,true".
+	static String[] sinActualizacion(String... args) {
+		if (Arrays.stream(args).anyMatch(arg -> arg.startsWith(ACTUALIZACION))) {
+			return args;
+		}
+		return Stream.concat(Arrays.stream(args), Stream.of(ACTUALIZACION + "=false")).toArray(String[]::new);
+	}
+
+	// Acepta "--import archivo" y "--import=archivo" (igual con --import-json y --import-catalogo).
+	static Optional<Importacion> leerImportacion(String... args) {
+		for (int i = 0; i < args.length; i++) {
+			for (TipoImportacion tipo : TipoImportacion.values()) {
+				if (args[i].equals(tipo.opcion)) {
+					if (i + 1 >= args.length) {
+						throw new IllegalArgumentException("Falta el archivo después de " + tipo.opcion);
+					}
+					return Optional.of(new Importacion(Path.of(args[i + 1]), tipo));
+				}
+				if (args[i].startsWith(tipo.opcion + "=")) {
+					return Optional.of(new Importacion(Path.of(args[i].substring(tipo.opcion.length() + 1)), tipo));
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	enum TipoImportacion {
+		TITULOS("--import"), JSON("--import-json"), CATALOGO("--import-catalogo");
+
+		private final String opcion;
+
+		TipoImportacion(String opcion) {
+			this.opcion = opcion;
+		}
+	}
+
+	record Importacion(Path archivo, TipoImportacion tipo) {
 	}
-}
\ No newline at end of file
+}
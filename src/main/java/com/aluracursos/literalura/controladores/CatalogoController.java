@@ -0,0 +1,103 @@
+package com.aluracursos.literalura.controladores;
+
+import com.aluracursos.literalura.modelos.AutorConLibros;
+import com.aluracursos.literalura.modelos.AutorResumen;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.modelos.Pagina;
+import com.aluracursos.literalura.servicios.BusquedaLocal;
+import com.aluracursos.literalura.servicios.ConsultasCatalogo;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// API de solo lectura sobre el catálogo local; nunca consulta Gutendex. Los listados devuelven una Pagina:
+// para la siguiente se repite la petición con cursor = siguiente.
+@RestController
+@RequestMapping("/api")
+public class CatalogoController {
+    private static final int TAMANO_MAXIMO = 100;
+
+    private final ConsultasCatalogo consultasCatalogo;
+    private final BusquedaLocal busquedaLocal;
+
+    public CatalogoController(ConsultasCatalogo consultasCatalogo, BusquedaLocal busquedaLocal) {
+        this.consultasCatalogo = consultasCatalogo;
+        this.busquedaLocal = busquedaLocal;
+    }
+
+    // Con idioma (uno o varios separados por comas) lista solo los libros en alguno de esos idiomas.
+    @GetMapping("/libros")
+    public Pagina<LibroResumen> libros(@RequestParam(defaultValue = "0") long cursor,
+                                       @RequestParam(defaultValue = "20") int tamano,
+                                       @RequestParam(required = false) List<String> idioma) {
+        validarTamano(tamano);
+        Set<String> idiomas = idiomas(idioma);
+        List<LibroResumen> filas = idiomas.isEmpty()
+                ? consultasCatalogo.libros(cursor, tamano + 1)
+                : consultasCatalogo.librosPorIdiomas(idiomas, cursor, tamano + 1);
+        return Pagina.de(filas, tamano, LibroResumen::id);
+    }
+
+    @GetMapping("/libros/buscar")
+    public List<LibroResumen> buscar(@RequestParam String texto,
+                                     @RequestParam(defaultValue = "20") int limite) {
+        validarTamano(limite);
+        if (texto.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El texto de búsqueda no puede estar vacío");
+        }
+        return busquedaLocal.buscar(texto, limite);
+    }
+
+    @GetMapping("/libros/top")
+    public List<LibroResumen> top(@RequestParam(defaultValue = "10") int n,
+                                  @RequestParam(required = false) String idioma) {
+        validarTamano(n);
+        return consultasCatalogo.top(idioma == null ? null : idioma.trim().toLowerCase(), n);
+    }
+
+    @GetMapping("/autores")
+    public Pagina<AutorResumen> autores(@RequestParam(defaultValue = "0") long cursor,
+                                        @RequestParam(defaultValue = "20") int tamano) {
+        validarTamano(tamano);
+        return Pagina.de(consultasCatalogo.autores(cursor, tamano + 1), tamano, AutorResumen::id);
+    }
+
+    // Autores que vivieron en algún momento entre desde y hasta, ambos inclusive.
+    @GetMapping("/autores/vivos")
+    public Pagina<AutorConLibros> autoresVivos(@RequestParam int desde,
+                                               @RequestParam int hasta,
+                                               @RequestParam(defaultValue = "0") long cursor,
+                                               @RequestParam(defaultValue = "20") int tamano) {
+        validarTamano(tamano);
+        if (desde > hasta) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "desde no puede ser mayor que hasta");
+        }
+        return Pagina.de(consultasCatalogo.autoresVivos(desde, hasta, cursor, tamano + 1), tamano, AutorConLibros::id);
+    }
+
+    private static void validarTamano(int tamano) {
+        if (tamano < 1 || tamano > TAMANO_MAXIMO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tamaño debe estar entre 1 y " + TAMANO_MAXIMO);
+        }
+    }
+
+    private static Set<String> idiomas(List<String> valores) {
+        Set<String> idiomas = new LinkedHashSet<>();
+        if (valores != null) {
+            for (String valor : valores) {
+                for (String codigo : valor.toLowerCase().split("[,\\s]+")) {
+                    if (!codigo.isEmpty()) {
+                        idiomas.add(codigo);
+                    }
+                }
+            }
+        }
+        return idiomas;
+    }
+}
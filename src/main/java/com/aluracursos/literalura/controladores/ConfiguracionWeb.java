@@ -0,0 +1,19 @@
+package com.aluracursos.literalura.controladores;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class ConfiguracionWeb {
+
+    // ETag calculado sobre el cuerpo: con If-None-Match igual responde 304 sin cuerpo. La consulta se
+    // ejecuta igual (casi siempre desde la caché de segundo nivel); lo que se ahorra es la red y el parseo del cliente.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> filtroEtag() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registro = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
@@ -1,21 +1,33 @@
 package com.aluracursos.literalura.modelos;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "autor", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"nombre"})
+}, indexes = {
+        @Index(name = "ux_autor_nombre_normalizado", columnList = "nombre_normalizado", unique = true)
 })
 public class Autor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autor_seq")
+    @SequenceGenerator(name = "autor_seq", sequenceName = "autor_seq", allocationSize = 50)
    private long id;
 
     private String nombre;
+
+    @Column(name = "nombre_normalizado")
+    private String nombreNormalizado;
+
     private Integer anoDeNacimiento;
     private Integer anoDeMuerte;
 
-   @OneToMany(mappedBy = "autor", fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
+   @ManyToMany(mappedBy = "autores", fetch = FetchType.LAZY)
+   @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Libro> libros;
 
     public Autor(String nombre, Integer anoDeNacimiento, Integer anoDeMuerte) {
@@ -57,6 +69,14 @@ public class Autor {
         this.nombre = nombre;
     }
 
+    public String getNombreNormalizado() {
+        return nombreNormalizado;
+    }
+
+    public void setNombreNormalizado(String nombreNormalizado) {
+        this.nombreNormalizado = nombreNormalizado;
+    }
+
     public Integer getAnoDeNacimiento() {
         return this.anoDeNacimiento;
     }
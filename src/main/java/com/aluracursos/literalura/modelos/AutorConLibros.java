@@ -0,0 +1,13 @@
+package com.aluracursos.literalura.modelos;
+
+import java.util.List;
+
+// Un autor con los títulos de sus libros, armado a partir de las filas de AutorLibroResumen.
+public record AutorConLibros(
+        Long id,
+        String nombre,
+        Integer anoDeNacimiento,
+        Integer anoDeMuerte,
+        List<String> libros
+) {
+}
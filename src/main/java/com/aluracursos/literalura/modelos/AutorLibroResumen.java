@@ -0,0 +1,11 @@
+package com.aluracursos.literalura.modelos;
+
+// Una fila por autor y libro; un autor sin libros aparece una vez con titulo nulo.
+public record AutorLibroResumen(
+        Long autorId,
+        String nombre,
+        Integer anoDeNacimiento,
+        Integer anoDeMuerte,
+        String titulo
+) {
+}
@@ -0,0 +1,9 @@
+package com.aluracursos.literalura.modelos;
+
+public record AutorResumen(
+        Long id,
+        String nombre,
+        Integer anoDeNacimiento,
+        Integer anoDeMuerte
+) {
+}
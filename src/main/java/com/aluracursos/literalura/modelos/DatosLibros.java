@@ -9,5 +9,6 @@ public record DatosLibros (
         @JsonAlias("title") String titulo,
         @JsonAlias("authors") List<DatosAutor> autor,
         @JsonAlias("languages") List<String> idioma,
-        @JsonAlias("download_count") Integer descargas
+        @JsonAlias("download_count") Integer descargas,
+        @JsonAlias("id") Long gutendexId
         ){ }
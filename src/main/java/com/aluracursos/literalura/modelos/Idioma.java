@@ -0,0 +1,44 @@
+package com.aluracursos.literalura.modelos;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "idioma", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"codigo"})
+})
+public class Idioma {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(length = 16, nullable = false)
+    private String codigo;
+
+    public Idioma(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public Idioma() {
+
+    }
+
+    public Short getId() {
+        return id;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    @Override
+    public String toString() {
+        return codigo;
+    }
+}
@@ -1,24 +1,57 @@
 package com.aluracursos.literalura.modelos;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 @Entity
-@Table(name = "libro", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"titulo"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Un libro es único por titulo_normalizado; el título se guarda recortado y dos títulos largos pueden coincidir en él.
+@Table(name = "libro", indexes = {
+        @Index(name = "ux_libro_titulo_normalizado", columnList = "titulo_normalizado", unique = true),
+        @Index(name = "ix_libro_descargas", columnList = "descargas"),
+        @Index(name = "ux_libro_gutendex_id", columnList = "gutendex_id", unique = true)
 })
 public class Libro {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libro_seq")
+    @SequenceGenerator(name = "libro_seq", sequenceName = "libro_seq", allocationSize = 50)
     private Long id;
 
     private String titulo;
-    private Integer descargas;
 
-    @ManyToOne
-    @JoinColumn(name = "autor_id")
-    private Autor autor;
+    @Column(name = "titulo_normalizado", length = 500)
+    private String tituloNormalizado;
+
+    private Integer descargas;
 
-    @Column(name = "idioma")
-    private String idioma;
+    // Número del libro en Gutenberg; es lo que permite volver a pedirlo a Gutendex con ?ids=.
+    @Column(name = "gutendex_id")
+    private Long gutendexId;
+
+    // posicion conserva el orden de Gutendex; el primer autor es el que se muestra con sus fechas.
+    @ManyToMany
+    @JoinTable(name = "libro_autor",
+            joinColumns = @JoinColumn(name = "libro_id"),
+            inverseJoinColumns = @JoinColumn(name = "autor_id"),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"libro_id", "autor_id"}),
+            indexes = @Index(name = "ix_libro_autor_autor", columnList = "autor_id, libro_id"))
+    @OrderColumn(name = "posicion")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private List<Autor> autores = new ArrayList<>();
+
+    @ManyToMany
+    @JoinTable(name = "libro_idioma",
+            joinColumns = @JoinColumn(name = "libro_id"),
+            inverseJoinColumns = @JoinColumn(name = "idioma_id"),
+            indexes = @Index(name = "ix_libro_idioma_idioma", columnList = "idioma_id, libro_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private Set<Idioma> idiomas = new LinkedHashSet<>();
 
 public Libro(){}
     public Long getId() {
@@ -37,34 +70,50 @@ public Libro(){}
         this.titulo = titulo;
     }
 
-    public int getDescargas() {
+    public String getTituloNormalizado() {
+        return tituloNormalizado;
+    }
+
+    public void setTituloNormalizado(String tituloNormalizado) {
+        this.tituloNormalizado = tituloNormalizado;
+    }
+
+    // Null en los libros que vienen del catálogo CSV, que no trae descargas.
+    public Integer getDescargas() {
         return descargas;
     }
 
-    public void setDescargas(int descargas) {
+    public void setDescargas(Integer descargas) {
         this.descargas = descargas;
     }
 
-    public Autor getAutor() {
-        return autor;
+    public Long getGutendexId() {
+        return gutendexId;
     }
 
-    public void setAutor(Autor autor) {
-        this.autor = autor;
+    public void setGutendexId(Long gutendexId) {
+        this.gutendexId = gutendexId;
     }
 
-    public String getIdioma() {
-        return idioma;
+    public List<Autor> getAutores() {
+        return autores;
     }
 
-    public void setIdioma(String idioma) {
+    public void setAutores(List<Autor> autores) {
+        this.autores = autores;
+    }
+
+    public Set<Idioma> getIdiomas() {
+        return idiomas;
+    }
 
-    this.idioma = idioma;
+    public void setIdiomas(Set<Idioma> idiomas) {
+        this.idiomas = idiomas;
     }
 
-    public Libro(String idioma,Autor autor, Integer descargas, String titulo, Long id) {
-        this.idioma = idioma;
-        this.autor = autor;
+    public Libro(Set<Idioma> idiomas, List<Autor> autores, Integer descargas, String titulo, Long id) {
+        this.idiomas = idiomas;
+        this.autores = autores;
         this.descargas = descargas;
         this.titulo = titulo;
     }
@@ -74,8 +123,8 @@ public Libro(){}
         return "Libro{" +
                 "id = " + id +
                 ", titulo = '" + titulo + '\'' +
-                ", autor = " + (autor != null ? autor.getNombre() : "N/A") +
-                ", lenguage = " + idioma +
+                ", autores = " + autores.stream().map(Autor::getNombre).collect(Collectors.joining(", ")) +
+                ", lenguage = " + idiomas +
                 ", descargas = " + descargas +
                 '}';
     }
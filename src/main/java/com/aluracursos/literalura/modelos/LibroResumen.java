@@ -0,0 +1,40 @@
+package com.aluracursos.literalura.modelos;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// autor e idioma pueden traer varios valores unidos por SEPARADOR_AUTORES y SEPARADOR_IDIOMAS;
+// las fechas son las del primer autor.
+public record LibroResumen(
+        Long id,
+        String titulo,
+        String autor,
+        Integer anoDeNacimiento,
+        Integer anoDeMuerte,
+        String idioma,
+        Integer descargas
+) {
+    public static final String SEPARADOR_AUTORES = "; ";
+    public static final String SEPARADOR_IDIOMAS = ", ";
+
+    public static LibroResumen de(Libro libro) {
+        Autor autor = libro.getAutores().isEmpty() ? null : libro.getAutores().get(0);
+        return new LibroResumen(
+                libro.getId(),
+                libro.getTitulo(),
+                autor != null
+                        ? libro.getAutores().stream().map(Autor::getNombre).collect(Collectors.joining(SEPARADOR_AUTORES))
+                        : null,
+                autor != null ? autor.getAnoDeNacimiento() : null,
+                autor != null ? autor.getAnoDeMuerte() : null,
+                libro.getIdiomas().isEmpty()
+                        ? null
+                        : libro.getIdiomas().stream().map(Idioma::getCodigo).sorted().collect(Collectors.joining(SEPARADOR_IDIOMAS)),
+                libro.getDescargas());
+    }
+
+    public List<String> codigosIdioma() {
+        return idioma == null ? List.of() : Arrays.asList(idioma.split(SEPARADOR_IDIOMAS));
+    }
+}
@@ -0,0 +1,17 @@
+package com.aluracursos.literalura.modelos;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Página de un listado por clave: siguiente es el cursor para pedir la próxima, o null si es la última.
+public record Pagina<T>(List<T> elementos, Long siguiente) {
+
+    // filas se pidió con tamano + 1 elementos; el sobrante solo indica que hay otra página.
+    public static <T> Pagina<T> de(List<T> filas, int tamano, Function<T, Long> id) {
+        if (filas.size() <= tamano) {
+            return new Pagina<>(filas, null);
+        }
+        List<T> elementos = List.copyOf(filas.subList(0, tamano));
+        return new Pagina<>(elementos, id.apply(elementos.get(tamano - 1)));
+    }
+}
@@ -3,8 +3,11 @@ package com.aluracursos.literalura.modelos;
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.List;
-import java.util.Optional;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record Respuesta(@JsonAlias("results") List<DatosLibros> resultado){
+public record Respuesta(
+        @JsonAlias("count") Integer total,
+        @JsonAlias("next") String siguiente,
+        @JsonAlias("results") List<DatosLibros> resultado
+){
 }
@@ -1,33 +1,53 @@
 package com.aluracursos.literalura.principal;
 
 import com.aluracursos.literalura.modelos.*;
-import com.aluracursos.literalura.repository.AutorRepository;
-import com.aluracursos.literalura.repository.LibroRepository;
-import com.aluracursos.literalura.servicios.ConsumoAPI;
+import com.aluracursos.literalura.servicios.BusquedaLocal;
+import com.aluracursos.literalura.servicios.CacheConsultas;
+import com.aluracursos.literalura.servicios.CacheRespuestas;
+import com.aluracursos.literalura.servicios.ConsultasCatalogo;
 import com.aluracursos.literalura.servicios.ConvierteDatos;
-import jakarta.transaction.Transactional;
+import com.aluracursos.literalura.servicios.CosechaCatalogo;
+import com.aluracursos.literalura.servicios.IndiceInvertido;
+import com.aluracursos.literalura.servicios.NormalizadorTexto;
+import com.aluracursos.literalura.servicios.RankingDescargas;
+import com.aluracursos.literalura.servicios.RegistroLibros;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Component
 public class Principal {
     private static final Logger logger = LoggerFactory.getLogger(Principal.class);
-    private final ConsumoAPI consumoAPI;
+    private final CacheRespuestas cacheRespuestas;
     private final ConvierteDatos convierteDatos;
-    private final LibroRepository libroRepository;
-    private final AutorRepository autorRepository;
+    private final ConsultasCatalogo consultasCatalogo;
+    private final CosechaCatalogo cosechaCatalogo;
+    private final NormalizadorTexto normalizadorTexto;
+    private final BusquedaLocal busquedaLocal;
+    private final IndiceInvertido indiceInvertido;
+    private final RankingDescargas rankingDescargas;
+    private final CacheConsultas cacheConsultas;
+    private final RegistroLibros registroLibros;
     private Scanner scanner = new Scanner(System.in);
     private static final String URL = "https://gutendex.com/books/";
+    private static final int TAMANO_PAGINA = 20;
 
-    public Principal(LibroRepository libroRepository, AutorRepository autorRepository, ConsumoAPI consumoAPI, ConvierteDatos convierteDatos) {
-        this.libroRepository = libroRepository;
-        this.autorRepository = autorRepository;
+    public Principal(ConsultasCatalogo consultasCatalogo, CacheRespuestas cacheRespuestas, ConvierteDatos convierteDatos, CosechaCatalogo cosechaCatalogo, NormalizadorTexto normalizadorTexto, BusquedaLocal busquedaLocal, IndiceInvertido indiceInvertido, RankingDescargas rankingDescargas, CacheConsultas cacheConsultas, RegistroLibros registroLibros) {
+        this.consultasCatalogo = consultasCatalogo;
         this.convierteDatos = convierteDatos;
-        this.consumoAPI = consumoAPI;
+        this.cacheRespuestas = cacheRespuestas;
+        this.cosechaCatalogo = cosechaCatalogo;
+        this.normalizadorTexto = normalizadorTexto;
+        this.busquedaLocal = busquedaLocal;
+        this.indiceInvertido = indiceInvertido;
+        this.rankingDescargas = rankingDescargas;
+        this.cacheConsultas = cacheConsultas;
+        this.registroLibros = registroLibros;
     }
 
     public void muestraElMenu() {
@@ -40,6 +60,9 @@ public class Principal {
             System.out.println("4- Listar autores vivos en un determinado año.");
             System.out.println("5- Listar libros por idiomas.");
             System.out.println("6- Top 10 libros más descargados");
+            System.out.println("7- Cosechar el catálogo completo de Gutendex.");
+            System.out.println("8- Ver estadísticas de las cachés.");
+            System.out.println("9- Buscar solo en el catálogo local.");
             System.out.println("0- Salir.");
             opcion = leerOpcionMenu();
 
@@ -50,6 +73,9 @@ public class Principal {
                 case 4 -> autoresVivosPeriodo();
                 case 5 -> librosPorIdiomas();
                 case 6 -> top10LibrosMasDescargados();
+                case 7 -> cosecharCatalogo();
+                case 8 -> estadisticasCache();
+                case 9 -> buscarEnCatalogoLocal();
                 case 0 -> {
                     System.out.println("Cerrando la aplicación...");
                     System.exit(0);
@@ -73,17 +99,21 @@ public class Principal {
                           }
                       }
 
-                      public Respuesta getLibro() {
-                          try {
-                              System.out.println("Ingrese el nombre del libro o autor:");
-                              String textoBuscado = scanner.nextLine();
+                      private String leerTextoBusqueda() {
+                          System.out.println("Ingrese el nombre del libro o autor:");
+                          String textoBuscado = scanner.nextLine();
 
-                              if (textoBuscado == null || textoBuscado.trim().isEmpty()){
-                                  System.out.println("El texto de búsqueda no puede estar vacío.");
-                                  return null;
-                              }
+                          if (textoBuscado == null || textoBuscado.trim().isEmpty()){
+                              System.out.println("El texto de búsqueda no puede estar vacío.");
+                              return null;
+                          }
+                          return textoBuscado;
+                      }
+
+                      public Respuesta getLibro(String textoBuscado) {
+                          try {
                               String urlBusqueda = URL + "?search=" + textoBuscado.replace(" ", "%20");
-                              String json = consumoAPI.obtenerDatos(urlBusqueda);
+                              String json = cacheRespuestas.obtenerDatos(urlBusqueda);
                               if(json == null || json.isEmpty()){
                                   System.out.println("No se recibió respuesta de la API.");
                                   return null;
@@ -102,18 +132,7 @@ public class Principal {
                           }
                       }
                       public String normalizarTexto(String texto) {
-                          if (texto == null) return null;
-
-                          texto = texto.toLowerCase();
-                          texto = texto.replaceAll("[áàäâ]", "a")
-                                  .replaceAll("[éèëê]", "e")
-                                  .replaceAll("[íìïî]", "i")
-                                  .replaceAll("[óòöô]", "o")
-                                  .replaceAll("[úùüû]", "u")
-                                  .replaceAll("\\s+", " ") // Normaliza espacios múltiples
-                                  .trim();
-
-                          return texto;
+                          return normalizadorTexto.normalizar(texto);
                       }
                   private Optional<Libro> guardarPrimerLibroSiNoExiste(Respuesta respuesta) {
                       if (respuesta == null || respuesta.resultado() == null || respuesta.resultado().isEmpty()) {
@@ -123,43 +142,13 @@ public class Principal {
                       DatosLibros datosLibro = respuesta.resultado().get(0);
 
                       try {
-                          String tituloNormalizado = normalizarTexto(datosLibro.titulo());
-                          if(tituloNormalizado.length()>500){
-                              tituloNormalizado = tituloNormalizado.substring(0,500);
-                          }
-
-                          Optional<Libro> libroExistente = libroRepository.findByTituloIgnoreCase(tituloNormalizado);
-                          if (libroExistente.isPresent()) {
+                          RegistroLibros.Registro registro = registroLibros.guardarSiNoExiste(datosLibro);
+                          if (registro.nuevo()) {
+                              System.out.println("Libro guardado: " + datosLibro.titulo());
+                          } else {
                               System.out.println("El libro '" + datosLibro.titulo() + "' ya está registrado.");
-                              return libroExistente;
-                          }
-
-                          Autor autor = null;
-                          if (datosLibro.autor() != null && !datosLibro.autor().isEmpty()) {
-                              DatosAutor datosAutor = datosLibro.autor().get(0);
-                              String nombreAutorNormalizado = normalizarTexto(datosAutor.nombre());
-
-                              Optional<Autor> autorExistente = autorRepository.findByNombreIgnoreCase(nombreAutorNormalizado);
-
-                              autor = autorExistente.orElseGet(() -> {
-                                  Autor nuevoAutor = new Autor();
-                                  nuevoAutor.setNombre(datosAutor.nombre());
-                                  nuevoAutor.setAnoDeNacimiento(datosAutor.anoDeNacimiento());
-                                  nuevoAutor.setAnoDeMuerte(datosAutor.anoDeMuerte());
-                                  return autorRepository.save(nuevoAutor);
-                              });
                           }
-
-                          Libro libro = new Libro();
-                          libro.setTitulo(datosLibro.titulo());
-                          libro.setDescargas(datosLibro.descargas());
-                          libro.setIdioma(obtenerIdioma(datosLibro));
-                          libro.setAutor(autor);
-
-                          Libro libroGuardado = libroRepository.save(libro);
-                          System.out.println("Libro guardado: " + datosLibro.titulo());
-
-                          return Optional.of(libroGuardado);
+                          return Optional.of(registro.libro());
 
                       } catch (Exception e) {
                           logger.error("Error al procesar el libro: " + e.getMessage());
@@ -168,13 +157,20 @@ public class Principal {
                       }
                   }
 
-                      private String obtenerIdioma(DatosLibros datosLibro) {
-                          return datosLibro.idioma() != null && !datosLibro.idioma().isEmpty()
-                                  ? datosLibro.idioma().get(0)
-                                  : "Desconocido";
-                      }
                       public void buscarLibros() {
-                          var datos = getLibro();
+                          String textoBuscado = leerTextoBusqueda();
+                          if (textoBuscado == null) {
+                              return;
+                          }
+
+                          List<LibroResumen> locales = busquedaLocal.buscar(textoBuscado, 5);
+                          if (!locales.isEmpty()) {
+                              System.out.println("Resultados del catálogo local:");
+                              imprimirLibros(locales);
+                              return;
+                          }
+
+                          var datos = getLibro(textoBuscado);
                           if (datos == null || datos.resultado() == null || datos.resultado().isEmpty()) {
                               System.out.println("No se encontraron resultados");
                               return;
@@ -182,16 +178,29 @@ public class Principal {
                           Optional<Libro> libroProcesado = guardarPrimerLibroSiNoExiste(datos);
 
                           libroProcesado.ifPresent(libro -> {
-                              List<Libro> libroParaImprimir = Collections.singletonList(libro);
+                              List<LibroResumen> libroParaImprimir = Collections.singletonList(LibroResumen.de(libro));
                               imprimirLibros(libroParaImprimir);
                           });
                       }
 
+                      private void buscarEnCatalogoLocal() {
+                          String textoBuscado = leerTextoBusqueda();
+                          if (textoBuscado == null) {
+                              return;
+                          }
+                          List<LibroResumen> libros = busquedaLocal.buscar(textoBuscado, 20);
+                          if (libros.isEmpty()) {
+                              System.out.println("No se encontraron libros en el catálogo local para: " + textoBuscado);
+                              return;
+                          }
+                          imprimirLibros(libros);
+                      }
+
                       private void librosPorIdiomas() {
 
                           List<String> idiomasValidos = List.of("es", "it", "en", "ja", "fr", "pt", "ru", "zh", "de", "ar");
 
-                          System.out.println("Ingresa el idioma que deseas buscar de la siguiente lista:");
+                          System.out.println("Ingresa uno o varios idiomas separados por comas de la siguiente lista:");
                           System.out.println(
                                   """ 
                         **************************************************
@@ -205,13 +214,17 @@ public class Principal {
                         """
         );
 
-        String idioma;
         while (true) {
-            System.out.print("Ingrese la clave de idioma: ");
-            idioma = scanner.nextLine().toLowerCase();
-            if (idiomasValidos.contains(idioma)) {
-                List<Libro> libros = libroRepository.findByIdioma(idioma);
-                imprimirLibros(libros);
+            System.out.print("Ingrese las claves de idioma (por ejemplo: es, en): ");
+            Set<String> idiomas = new LinkedHashSet<>();
+            for (String clave : scanner.nextLine().toLowerCase().split("[,\\s]+")) {
+                if (!clave.isEmpty()) {
+                    idiomas.add(clave);
+                }
+            }
+            if (!idiomas.isEmpty() && idiomasValidos.containsAll(idiomas)) {
+                paginar((ultimoId, limite) -> consultasCatalogo.librosPorIdiomas(idiomas, ultimoId, limite.max()),
+                        LibroResumen::id, (libros, posicion) -> imprimirLibros(libros));
                 break;
             } else {
                 System.out.println("Idioma no válido. Por favor ingrese uno de los idiomas válidos.");
@@ -227,12 +240,50 @@ public class Principal {
                 """
         );
 
-        Pageable pageable = PageRequest.of(0, 10); // Página 0 con 10 elementos
-        List<Libro> top10Libros = libroRepository.findAllByOrderByDescargasDesc(pageable).getContent();
+        System.out.print("Clave de idioma (Enter para todos): ");
+        String idioma = scanner.nextLine().trim().toLowerCase();
+
+        imprimirLibros(consultasCatalogo.top(idioma, 10));
+    }
+
 
-        imprimirLibros(top10Libros);
+    private void cosecharCatalogo() {
+        System.out.println(
+                """
+                    **************************************************
+                    *          COSECHA DEL CATÁLOGO GUTENDEX         *
+                    **************************************************
+                """
+        );
+        try {
+            CosechaCatalogo.ResultadoCosecha resultado = cosechaCatalogo.cosechar(URL);
+            System.out.printf("Páginas: %d | Libros recibidos: %d | Libros nuevos: %d | Tiempo: %d s%n",
+                    resultado.paginas(), resultado.libros(), resultado.insertados(), resultado.duracion().toSeconds());
+            indiceInvertido.sincronizar();
+            rankingDescargas.recargar();
+        } catch (Exception e) {
+            logger.error("Error durante la cosecha del catálogo: " + e.getMessage());
+            System.out.println("La cosecha se detuvo. Vuelva a ejecutarla para continuar desde la última página guardada.");
+        }
     }
 
+    private void estadisticasCache() {
+        CacheRespuestas.EstadisticasCache estadisticas = cacheRespuestas.estadisticas();
+        System.out.printf("Aciertos: %d (disco: %d) | Fallos: %d | Revalidaciones: %d | Vencidas por falla de la API: %d | Entradas: %d | Tasa de aciertos: %.1f%%%n",
+                estadisticas.aciertos(), estadisticas.aciertosDisco(), estadisticas.fallos(),
+                estadisticas.revalidaciones(), estadisticas.respaldos(), estadisticas.entradas(),
+                estadisticas.tasaAciertos() * 100);
+
+        if (!cacheConsultas.estadisticasHabilitadas()) {
+            System.out.println("Las estadísticas de la base están desactivadas (literalura.estadisticas-hibernate=true las activa).");
+            return;
+        }
+        CacheConsultas.EstadisticasSegundoNivel segundoNivel = cacheConsultas.estadisticas();
+        System.out.printf("Entidades en caché: %d aciertos, %d fallos (%.1f%%) | Consultas en caché: %d aciertos, %d fallos (%.1f%%) | Sentencias SQL: %d%n",
+                segundoNivel.aciertosEntidades(), segundoNivel.fallosEntidades(), segundoNivel.tasaAciertosEntidades() * 100,
+                segundoNivel.aciertosConsultas(), segundoNivel.fallosConsultas(), segundoNivel.tasaAciertosConsultas() * 100,
+                segundoNivel.sentenciasSql());
+    }
 
    private void autoresVivosPeriodo() {
        imprimirEncabezadoAutoresVivos();
@@ -245,13 +296,14 @@ public class Principal {
            return;
        }
 
-       List<Autor> autores = autorRepository.findAutoresByRangoNacimientoYMuerte(minima, maxima);
-       if (autores.isEmpty()) {
-           System.out.println("No se encontraron autores vivos en el periodo especificado.");
-           return;
-       }
-
-       autores.forEach(this::mostrarAutorConLibros);
+       paginar((ultimoId, limite) -> consultasCatalogo.autoresVivos(minima, maxima, ultimoId, limite.max()),
+               AutorConLibros::id,
+               (autores, posicion) -> {
+                   if (autores.isEmpty()) {
+                       System.out.println("No se encontraron autores vivos en el periodo especificado.");
+                   }
+                   autores.forEach(this::mostrarAutorConLibros);
+               });
    }
 
     private void imprimirEncabezadoAutoresVivos() {
@@ -271,12 +323,12 @@ public class Principal {
             scanner.next();
             System.out.print(mensaje);
         }
-        return scanner.nextInt();
+        int fecha = scanner.nextInt();
+        scanner.nextLine();
+        return fecha;
     }
 
-    private void mostrarAutorConLibros(Autor autor) {
-
-        autor.getLibro().size();
+    private void mostrarAutorConLibros(AutorConLibros autor) {
 
         System.out.println(
                 """
@@ -285,15 +337,15 @@ public class Principal {
                 Año de nacimiento: %s
                 Libros del autor:
                 """.formatted(
-                        autor.getNombre(),
-                        autor.getAnoDeNacimiento() != null ? autor.getAnoDeNacimiento() : "Desconocido"
+                        autor.nombre(),
+                        autor.anoDeNacimiento() != null ? autor.anoDeNacimiento() : "Desconocido"
                 )
         );
 
-        if (autor.getLibro().isEmpty()) {
+        if (autor.libros().isEmpty()) {
             System.out.println("  (Sin libros registrados)");
         } else {
-            autor.getLibro().forEach(libro -> System.out.println("  - " + libro.getTitulo()));
+            autor.libros().forEach(titulo -> System.out.println("  - " + titulo));
         }
 
         System.out.println("--------------------------------------------------");
@@ -308,16 +360,15 @@ public class Principal {
                     **************************************************
                 """
         );
-        List<Autor> autores = autorRepository.findAllAutores();
-
-        if (autores.isEmpty()) {
-            System.out.println("No hay autores registrados.");
-            return;
-        }
-
-        for (int i = 0; i < autores.size(); i++) {
-            System.out.println((i + 1) + ". " + autores.get(i).getNombre());
-        }
+        paginar((ultimoId, limite) -> consultasCatalogo.autores(ultimoId, limite.max()), AutorResumen::id, (autores, posicion) -> {
+            if (autores.isEmpty()) {
+                System.out.println("No hay autores registrados.");
+                return;
+            }
+            for (int i = 0; i < autores.size(); i++) {
+                System.out.println((posicion + i + 1) + ". " + autores.get(i).nombre());
+            }
+        });
     }
 
     private void librosRegistrados() {
@@ -328,16 +379,49 @@ public class Principal {
                         **************************************************
                     """
             );
-        List<Libro> libros = libroRepository.findAllLibros();
-
-        if (libros.isEmpty()) {
+        paginar((ultimoId, limite) -> consultasCatalogo.libros(ultimoId, limite.max()), LibroResumen::id, (libros, posicion) -> {
+            if (libros.isEmpty()) {
                 System.out.println("No hay libros registrados.");
                 return;
             }
             imprimirLibros(libros);
+        });
+    }
+
+    // Paginación por clave: cada página pide las filas con id mayor al último mostrado,
+    // así la memoria y el tiempo por página no dependen del tamaño del catálogo.
+    private <T> void paginar(BiFunction<Long, Limit, List<T>> consulta, Function<T, Long> id, BiConsumer<List<T>, Integer> imprimir) {
+        Deque<Long> anteriores = new ArrayDeque<>();
+        long cursor = 0;
+        while (true) {
+            List<T> pagina = consulta.apply(cursor, Limit.of(TAMANO_PAGINA + 1));
+            boolean haySiguiente = pagina.size() > TAMANO_PAGINA;
+            if (haySiguiente) {
+                pagina = pagina.subList(0, TAMANO_PAGINA);
+            }
+            imprimir.accept(pagina, anteriores.size() * TAMANO_PAGINA);
+            if (!haySiguiente && anteriores.isEmpty()) {
+                return;
+            }
+
+            System.out.println("Página " + (anteriores.size() + 1)
+                    + (haySiguiente ? " | s- Siguiente" : "")
+                    + (anteriores.isEmpty() ? "" : " | a- Anterior")
+                    + " | 0- Volver al menú");
+            String opcion = scanner.nextLine().trim().toLowerCase();
+            if (opcion.equals("s") && haySiguiente) {
+                anteriores.push(cursor);
+                cursor = id.apply(pagina.get(pagina.size() - 1));
+            } else if (opcion.equals("a") && !anteriores.isEmpty()) {
+                cursor = anteriores.pop();
+            } else if (opcion.equals("0")) {
+                return;
+            } else {
+                System.out.println("Opción inválida");
+            }
         }
-@Transactional
-    private void imprimirLibros(List<Libro> libros) {
+    }
+    private void imprimirLibros(List<LibroResumen> libros) {
         if (libros == null || libros.isEmpty()) {
             System.out.println(
                     """ 
@@ -363,27 +447,26 @@ public class Principal {
                         --------------------------------------------------
                         TÍTULO: %s
                         --------------------------------------------------
-                    """.formatted(libro.getTitulo())
+                    """.formatted(libro.titulo())
             );
 
-            if (libro.getAutor() != null) {
-                Autor autor = libro.getAutor();
+            if (libro.autor() != null) {
                 System.out.printf(
                         """
                         Autor: %s
                         Año de nacimiento: %s
                         Año de muerte: %s
                         """,
-                        autor.getNombre(),
-                        autor.getAnoDeNacimiento() != null ? autor.getAnoDeNacimiento() : "Desconocido",
-                        autor.getAnoDeMuerte() != null ? autor.getAnoDeMuerte() : "Aún vive"
+                        libro.autor(),
+                        libro.anoDeNacimiento() != null ? libro.anoDeNacimiento() : "Desconocido",
+                        libro.anoDeMuerte() != null ? libro.anoDeMuerte() : "Aún vive"
                 );
             } else {
                 System.out.println("Autor: Desconocido");
             }
 
-            System.out.println("Idiomas: " + (libro.getIdioma() != null ? String.join(", ", libro.getIdioma()) : "No especificado"));
-            System.out.println("Descargas: " + libro.getDescargas());
+            System.out.println("Idiomas: " + (libro.idioma() != null ? String.join(", ", libro.idioma()) : "No especificado"));
+            System.out.println("Descargas: " + libro.descargas());
             System.out.println(
                     """
                         --------------------------------------------------
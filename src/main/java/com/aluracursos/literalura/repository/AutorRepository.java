@@ -1,27 +1,66 @@
 package com.aluracursos.literalura.repository;
 
 import com.aluracursos.literalura.modelos.Autor;
+import com.aluracursos.literalura.modelos.AutorLibroResumen;
+import com.aluracursos.literalura.modelos.AutorResumen;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
 
 public interface AutorRepository extends JpaRepository<Autor, Long> {
 
+    // vida es un int4range generado (ver schema.sql) con índice GiST: && encuentra a quien vivió en algún
+    // momento de [min, max], aunque haya nacido antes. Pagina por id con el mismo cursor que los listados.
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_NATIVE_SPACES, value = "autor")
+    })
+    @Query(value = """
+            SELECT a.id
+            FROM autor a
+            WHERE a.vida && int4range(:min, :max, '[]')
+            AND a.id > :ultimoId
+            ORDER BY a.id
+            LIMIT :limite
+            """, nativeQuery = true)
+    List<Long> findIdsVivosEnPeriodo(@Param("min") int min, @Param("max") int max,
+                                     @Param("ultimoId") long ultimoId, @Param("limite") int limite);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("""
+    SELECT new com.aluracursos.literalura.modelos.AutorLibroResumen(
+        a.id, a.nombre, a.anoDeNacimiento, a.anoDeMuerte, l.titulo)
+    FROM Autor a
+    LEFT JOIN a.libros l
+    WHERE a.id IN :ids
+    ORDER BY a.id, l.titulo
+""")
+    List<AutorLibroResumen> findAutoresConLibrosByIds(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("""
-    SELECT a 
-    FROM Autor a 
-    LEFT JOIN FETCH a.libros 
-    WHERE a.anoDeNacimiento BETWEEN :min AND :max
-    AND (a.anoDeMuerte IS NULL OR a.anoDeMuerte >= :min)
-    ORDER BY a.anoDeNacimiento
+    SELECT new com.aluracursos.literalura.modelos.AutorResumen(a.id, a.nombre, a.anoDeNacimiento, a.anoDeMuerte)
+    FROM Autor a
+    WHERE a.id > :ultimoId
+    ORDER BY a.id
 """)
-    List<Autor> findAutoresByRangoNacimientoYMuerte(@Param("min") int min, @Param("max") int max);
-    @Query("SELECT DISTINCT a FROM Autor a")
+    List<AutorResumen> findPaginaAutores(@Param("ultimoId") long ultimoId, Limit limite);
 
-    List<Autor> findAllAutores();
+    Optional<Autor> findByNombreNormalizado(String nombreNormalizado);
 
-    Optional<Autor> findByNombreIgnoreCase(String nombre);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.nombreNormalizado FROM Autor a WHERE a.nombreNormalizado IS NOT NULL")
+    Stream<String> streamNombresNormalizados();
 
 }
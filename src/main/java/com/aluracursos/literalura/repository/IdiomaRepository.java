@@ -0,0 +1,11 @@
+package com.aluracursos.literalura.repository;
+
+import com.aluracursos.literalura.modelos.Idioma;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Optional;
+
+public interface IdiomaRepository extends JpaRepository<Idioma, Short> {
+
+    Optional<Idioma> findByCodigo(String codigo);
+
+}
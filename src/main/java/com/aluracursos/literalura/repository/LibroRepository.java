@@ -1,23 +1,94 @@
 package com.aluracursos.literalura.repository;
 
 import com.aluracursos.literalura.modelos.Libro;
-import org.springframework.data.domain.Page;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface LibroRepository extends JpaRepository<Libro, Long> {
-    @Query("SELECT l FROM Libro l WHERE l.idioma = :idioma ORDER BY l.idioma")
-    List<Libro> findByIdioma(@Param("idioma") String idioma);
+    // Autores e idiomas salen de subconsultas correlacionadas sobre las tablas de unión, así cada
+    // libro sigue siendo una fila y los filtros, el orden y el Limit se aplican igual que antes.
+    String RESUMEN = """
+            SELECT new com.aluracursos.literalura.modelos.LibroResumen(
+                l.id, l.titulo,
+                (SELECT listagg(a.nombre, '; ') WITHIN GROUP (ORDER BY index(a)) FROM Libro x JOIN x.autores a WHERE x = l),
+                (SELECT a.anoDeNacimiento FROM Libro x JOIN x.autores a WHERE x = l AND index(a) = 0),
+                (SELECT a.anoDeMuerte FROM Libro x JOIN x.autores a WHERE x = l AND index(a) = 0),
+                (SELECT listagg(i.codigo, ', ') WITHIN GROUP (ORDER BY i.codigo) FROM Libro x JOIN x.idiomas i WHERE x = l),
+                l.descargas)
+            FROM Libro l
+            """;
+
+    String CON_IDIOMA = "EXISTS (SELECT 1 FROM Libro x JOIN x.idiomas i WHERE x = l AND i.codigo IN :idiomas) ";
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(RESUMEN + "ORDER BY l.descargas DESC")
+    List<LibroResumen> findTopPorDescargas(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(RESUMEN + "WHERE " + CON_IDIOMA + "ORDER BY l.descargas DESC")
+    List<LibroResumen> findTopPorIdiomas(@Param("idiomas") Collection<String> idiomas, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT i.codigo FROM Idioma i ORDER BY i.codigo")
+    List<String> findIdiomas();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(RESUMEN + "WHERE l.id > :ultimoId ORDER BY l.id")
+    List<LibroResumen> findPaginaLibros(@Param("ultimoId") long ultimoId, Limit limite);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(RESUMEN + "WHERE " + CON_IDIOMA + "AND l.id > :ultimoId ORDER BY l.id")
+    List<LibroResumen> findPaginaPorIdiomas(@Param("idiomas") Collection<String> idiomas,
+                                            @Param("ultimoId") long ultimoId, Limit limite);
+
+    @Query(RESUMEN + "WHERE l.id IN :ids")
+    List<LibroResumen> findResumenByIds(@Param("ids") Collection<Long> ids);
+
+    // word_similarity tolera errores de tipeo y coincidencias parciales; cada rama usa su índice GIN de trigramas.
+    @Query(value = """
+            SELECT r.id
+            FROM (
+                SELECT l.id, word_similarity(:texto, l.titulo_normalizado) AS puntaje, l.descargas
+                FROM libro l
+                WHERE :texto <% l.titulo_normalizado
+                UNION ALL
+                SELECT l.id, word_similarity(:texto, a.nombre_normalizado) AS puntaje, l.descargas
+                FROM autor a
+                JOIN libro_autor la ON la.autor_id = a.id
+                JOIN libro l ON l.id = la.libro_id
+                WHERE :texto <% a.nombre_normalizado
+            ) r
+            GROUP BY r.id
+            ORDER BY MAX(r.puntaje) DESC, MAX(r.descargas) DESC NULLS LAST
+            LIMIT :limite
+            """, nativeQuery = true)
+    List<Long> buscarIdsPorSimilitud(@Param("texto") String textoNormalizado, @Param("limite") int limite);
+
+    Optional<Libro> findByTituloNormalizado(String tituloNormalizado);
+
+    Optional<Libro> findByGutendexId(Long gutendexId);
 
-    Page<Libro> findAllByOrderByDescargasDesc(Pageable pageable);
+    // Con autores e idiomas cargados, para usarlo fuera de la transacción que lo guardó.
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autores LEFT JOIN FETCH l.idiomas WHERE l.id = :id")
+    Optional<Libro> findConRelacionesById(@Param("id") Long id);
 
-    @Query("SELECT l FROM Libro l")
-    List<Libro> findAllLibros();
+    long countByIdLessThanEqual(Long id);
 
-    Optional<Libro> findByTituloIgnoreCase(String titulo);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.tituloNormalizado FROM Libro l WHERE l.tituloNormalizado IS NOT NULL")
+    Stream<String> streamTitulosNormalizados();
 
 }
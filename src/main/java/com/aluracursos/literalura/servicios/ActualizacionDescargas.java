@@ -0,0 +1,200 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// Vuelve a pedir a Gutendex los libros guardados, en ventanas ordenadas por gutendex_id, y actualiza solo las
+// descargas que cambiaron. El último gutendex_id revisado queda en un checkpoint: cada ejecución sigue desde ahí,
+// se corta al pasar duracionMaxima y, al llegar al final del catálogo, la siguiente vuelve a empezar.
+@Service
+public class ActualizacionDescargas {
+    private static final Logger logger = LoggerFactory.getLogger(ActualizacionDescargas.class);
+
+    private static final String VENTANA = """
+            SELECT id, gutendex_id, descargas FROM libro
+            WHERE gutendex_id > ?
+            ORDER BY gutendex_id
+            LIMIT ?
+            """;
+
+    // Cada lote es una transacción corta que solo bloquea las filas que cambian; las lecturas no esperan.
+    private static final String ACTUALIZAR = """
+            UPDATE libro SET descargas = ?
+            WHERE id = ? AND descargas IS DISTINCT FROM ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsumoAPI consumoAPI;
+    private final IConvierteDatos convierteDatos;
+    private final RankingDescargas rankingDescargas;
+    private final ApplicationEventPublisher eventos;
+    private final String urlLibros;
+    private final int tamanoVentana;
+    private final Duration duracionMaxima;
+    private final Path checkpoint;
+    private final boolean habilitada;
+
+    public ActualizacionDescargas(JdbcTemplate jdbcTemplate,
+                                  ConsumoAPI consumoAPI,
+                                  IConvierteDatos convierteDatos,
+                                  RankingDescargas rankingDescargas,
+                                  ApplicationEventPublisher eventos,
+                                  @Value("${literalura.actualizacion.url:https://gutendex.com/books/}") String urlLibros,
+                                  @Value("${literalura.actualizacion.tamano-ventana:32}") int tamanoVentana,
+                                  @Value("${literalura.actualizacion.duracion-maxima:PT15M}") Duration duracionMaxima,
+                                  @Value("${literalura.actualizacion.checkpoint:actualizacion.checkpoint}") String checkpoint,
+                                  @Value("${literalura.actualizacion.habilitada:true}") boolean habilitada) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consumoAPI = consumoAPI;
+        this.convierteDatos = convierteDatos;
+        this.rankingDescargas = rankingDescargas;
+        this.eventos = eventos;
+        this.urlLibros = urlLibros;
+        this.tamanoVentana = tamanoVentana;
+        this.duracionMaxima = duracionMaxima;
+        this.checkpoint = Path.of(checkpoint);
+        this.habilitada = habilitada;
+    }
+
+    @Scheduled(initialDelayString = "${literalura.actualizacion.demora-inicial:PT10M}",
+            fixedDelayString = "${literalura.actualizacion.intervalo:PT6H}")
+    public void actualizarProgramado() {
+        if (!habilitada) {
+            return;
+        }
+        ResultadoActualizacion resultado = actualizar();
+        logger.info("Descargas: " + resultado.revisados() + " libros revisados, " + resultado.actualizados()
+                + " actualizados en " + resultado.duracion().toMillis() + " ms"
+                + (resultado.completa() ? "; catálogo recorrido completo" : "; sigue en la próxima ejecución"));
+    }
+
+    public ResultadoActualizacion actualizar() {
+        long inicio = System.nanoTime();
+        long desde = leerCheckpoint();
+        long revisados = 0;
+        long actualizados = 0;
+        boolean completa = false;
+
+        while (System.nanoTime() - inicio < duracionMaxima.toNanos()) {
+            List<Fila> filas = jdbcTemplate.query(VENTANA,
+                    (rs, fila) -> new Fila(rs.getLong(1), rs.getLong(2), (Integer) rs.getObject(3)), desde, tamanoVentana);
+            if (filas.isEmpty()) {
+                completa = true;
+                guardarCheckpoint(0);
+                break;
+            }
+
+            Map<Long, Integer> remotas;
+            try {
+                remotas = descargasRemotas(filas);
+            } catch (ApiNoDisponibleException e) {
+                logger.warn("Actualización de descargas detenida en gutendex_id " + desde + ": " + e.getMessage());
+                break;
+            }
+            List<Fila> cambiadas = filas.stream()
+                    .filter(fila -> remotas.get(fila.gutendexId()) != null
+                            && !Objects.equals(remotas.get(fila.gutendexId()), fila.descargas()))
+                    .map(fila -> new Fila(fila.id(), fila.gutendexId(), remotas.get(fila.gutendexId())))
+                    .toList();
+            actualizados += aplicar(cambiadas);
+            revisados += filas.size();
+            desde = filas.get(filas.size() - 1).gutendexId();
+            guardarCheckpoint(desde);
+        }
+
+        if (actualizados > 0) {
+            rankingDescargas.recargar();
+        }
+        return new ResultadoActualizacion(revisados, actualizados, completa, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    // Una ventana cabe en una página de Gutendex (32 libros); si no, se siguen las páginas siguientes.
+    private Map<Long, Integer> descargasRemotas(List<Fila> filas) {
+        String ids = filas.stream().map(fila -> String.valueOf(fila.gutendexId())).collect(Collectors.joining(","));
+        Map<Long, Integer> descargas = new HashMap<>();
+        String url = urlLibros + "?ids=" + ids;
+        while (url != null) {
+            Respuesta respuesta = convierteDatos.obtenerDatos(consumoAPI.obtenerDatos(url), Respuesta.class);
+            for (DatosLibros libro : respuesta.resultado() != null ? respuesta.resultado() : List.<DatosLibros>of()) {
+                if (libro.gutendexId() != null) {
+                    descargas.put(libro.gutendexId(), libro.descargas());
+                }
+            }
+            url = respuesta.siguiente();
+        }
+        return descargas;
+    }
+
+    private int aplicar(List<Fila> cambiadas) {
+        if (cambiadas.isEmpty()) {
+            return 0;
+        }
+        int[][] resultados = jdbcTemplate.batchUpdate(ACTUALIZAR, cambiadas, cambiadas.size(), (ps, fila) -> {
+            ps.setInt(1, fila.descargas());
+            ps.setLong(2, fila.id());
+            ps.setInt(3, fila.descargas());
+        });
+        int actualizadas = 0;
+        for (int[] lote : resultados) {
+            for (int filas : lote) {
+                actualizadas += Math.max(filas, 0);
+            }
+        }
+        eventos.publishEvent(new DescargasActualizadas(cambiadas.stream().map(Fila::id).toList()));
+        return actualizadas;
+    }
+
+    private long leerCheckpoint() {
+        try {
+            if (!Files.exists(checkpoint)) {
+                return 0;
+            }
+            String valor = Files.readString(checkpoint).trim();
+            return valor.isEmpty() ? 0 : Long.parseLong(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void guardarCheckpoint(long gutendexId) {
+        try {
+            if (gutendexId == 0) {
+                Files.deleteIfExists(checkpoint);
+                return;
+            }
+            Path temporal = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            Files.writeString(temporal, Long.toString(gutendexId));
+            Files.move(temporal, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ids son los de la tabla libro; CacheConsultas descarta esas entidades y las consultas cacheadas.
+    public record DescargasActualizadas(List<Long> ids) {
+    }
+
+    public record ResultadoActualizacion(long revisados, long actualizados, boolean completa, Duration duracion) {
+    }
+
+    private record Fila(long id, long gutendexId, Integer descargas) {
+    }
+}
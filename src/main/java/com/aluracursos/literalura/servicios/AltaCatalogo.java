@@ -0,0 +1,210 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+// Alta de autores, idiomas y libros por clave natural con una sentencia por tabla para todo el lote:
+// INSERT ... ON CONFLICT DO NOTHING RETURNING da los ids de las filas nuevas y una segunda lectura trae las que ya
+// estaban. Si otra transacción inserta la misma clave a la vez, el INSERT espera a que confirme y la salta; la lectura,
+// con su propia instantánea (READ COMMITTED), ya la ve. Así dos ingestas concurrentes no pierden libros, sin bloqueos
+// explícitos ni reintentos. Todas las filas se insertan en orden de clave: dos lotes con claves comunes esperan en
+// el mismo orden y no se traban entre sí, aunque cada uno las traiga en otro orden.
+@Service
+public class AltaCatalogo {
+    private static final int LONGITUD_MAXIMA = 255;
+
+    // El NOT EXISTS evita gastar valores de la secuencia en las claves que ya existen; el ON CONFLICT cubre las que
+    // otra transacción inserta a la vez y también la restricción única sobre el nombre.
+    private static final String INSERTAR_AUTORES = """
+            INSERT INTO autor (id, nombre, nombre_normalizado, ano_de_nacimiento, ano_de_muerte)
+            SELECT nextval('autor_seq'), n.nombre, n.clave, n.nacimiento, n.muerte
+            FROM unnest(?::varchar[], ?::varchar[], ?::int[], ?::int[]) AS n(nombre, clave, nacimiento, muerte)
+            WHERE NOT EXISTS (SELECT 1 FROM autor a WHERE a.nombre_normalizado = n.clave)
+            ON CONFLICT DO NOTHING
+            RETURNING id, nombre_normalizado
+            """;
+
+    private static final String LEER_AUTORES = """
+            SELECT id, nombre_normalizado, nombre FROM autor
+            WHERE nombre_normalizado = ANY(?) OR nombre = ANY(?)
+            """;
+
+    private static final String INSERTAR_IDIOMAS = """
+            INSERT INTO idioma (codigo)
+            SELECT n.codigo FROM unnest(?::varchar[]) AS n(codigo)
+            WHERE NOT EXISTS (SELECT 1 FROM idioma i WHERE i.codigo = n.codigo)
+            ON CONFLICT DO NOTHING
+            RETURNING id, codigo
+            """;
+
+    private static final String LEER_IDIOMAS = """
+            SELECT id, codigo, codigo FROM idioma WHERE codigo = ANY(?) OR codigo = ANY(?)
+            """;
+
+    // Los ids se toman en el orden de llegada (la CTE con nextval se materializa, y nextval se evalúa después del
+    // ORDER BY) y las filas se insertan en orden de clave. Un gutendex_id que ya usa otro título se descarta en lugar
+    // de hacer saltar el libro entero.
+    private static final String INSERTAR_LIBROS = """
+            WITH nuevos AS (
+                SELECT nextval('libro_seq') AS id, n.titulo, n.clave, n.descargas, n.gutendex_id
+                FROM unnest(?::varchar[], ?::varchar[], ?::int[], ?::bigint[], ?::int[])
+                     AS n(titulo, clave, descargas, gutendex_id, orden)
+                WHERE NOT EXISTS (SELECT 1 FROM libro l WHERE l.titulo_normalizado = n.clave)
+                ORDER BY n.orden
+            )
+            INSERT INTO libro (id, titulo, titulo_normalizado, descargas, gutendex_id)
+            SELECT nuevos.id, nuevos.titulo, nuevos.clave, nuevos.descargas,
+                   CASE WHEN NOT EXISTS (SELECT 1 FROM libro o WHERE o.gutendex_id = nuevos.gutendex_id) THEN nuevos.gutendex_id END
+            FROM nuevos
+            ORDER BY nuevos.clave
+            ON CONFLICT DO NOTHING
+            RETURNING id, titulo_normalizado
+            """;
+
+    // Los libros solo se buscan por clave: el título guardado está recortado y puede repetirse entre libros distintos.
+    private static final String LEER_LIBROS = """
+            SELECT id, titulo_normalizado, titulo_normalizado FROM libro
+            WHERE titulo_normalizado = ANY(?) OR titulo_normalizado = ANY(?)
+            """;
+
+    private static final String RELACIONAR_AUTORES = """
+            INSERT INTO libro_autor (libro_id, autor_id, posicion)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::int[]) AS r(libro, autor, posicion)
+            ORDER BY r.libro, r.autor
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String RELACIONAR_IDIOMAS = """
+            INSERT INTO libro_idioma (libro_id, idioma_id)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[]) AS r(libro, idioma)
+            ORDER BY r.libro, r.idioma
+            ON CONFLICT DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AltaCatalogo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // porClave: nombre normalizado -> datos del autor.
+    public Altas autores(Map<String, DatosAutor> porClave) {
+        SortedMap<String, DatosAutor> ordenados = new TreeMap<>(porClave);
+        Map<String, String> nombres = new HashMap<>();
+        ordenados.forEach((clave, autor) -> nombres.put(clave, recortar(autor.nombre())));
+        return alta(INSERTAR_AUTORES, ps -> {
+            ps.setArray(1, arreglo(ps, "varchar", ordenados.keySet().stream().map(nombres::get).toArray(String[]::new)));
+            ps.setArray(2, arreglo(ps, "varchar", ordenados.keySet().toArray(String[]::new)));
+            ps.setArray(3, arreglo(ps, "int4", ordenados.values().stream().map(DatosAutor::anoDeNacimiento).toArray(Integer[]::new)));
+            ps.setArray(4, arreglo(ps, "int4", ordenados.values().stream().map(DatosAutor::anoDeMuerte).toArray(Integer[]::new)));
+        }, LEER_AUTORES, nombres);
+    }
+
+    public Altas idiomas(Collection<String> codigos) {
+        Set<String> ordenados = new TreeSet<>(codigos);
+        Map<String, String> nombres = new HashMap<>();
+        ordenados.forEach(codigo -> nombres.put(codigo, codigo));
+        return alta(INSERTAR_IDIOMAS, ps -> ps.setArray(1, arreglo(ps, "varchar", ordenados.toArray(String[]::new))),
+                LEER_IDIOMAS, nombres);
+    }
+
+    // porClave: título normalizado -> datos del libro. Los libros nuevos reciben ids en el orden del mapa, así una
+    // importación conserva el orden del archivo.
+    public Altas libros(Map<String, DatosLibros> porClave) {
+        List<String> claves = new ArrayList<>(porClave.keySet());
+        Map<String, String> mismaClave = new HashMap<>();
+        claves.forEach(clave -> mismaClave.put(clave, clave));
+        return alta(INSERTAR_LIBROS, ps -> {
+            ps.setArray(1, arreglo(ps, "varchar", claves.stream().map(clave -> recortar(porClave.get(clave).titulo())).toArray(String[]::new)));
+            ps.setArray(2, arreglo(ps, "varchar", claves.toArray(String[]::new)));
+            ps.setArray(3, arreglo(ps, "int4", claves.stream().map(clave -> porClave.get(clave).descargas()).toArray(Integer[]::new)));
+            ps.setArray(4, arreglo(ps, "int8", claves.stream().map(clave -> porClave.get(clave).gutendexId()).toArray(Long[]::new)));
+            ps.setArray(5, arreglo(ps, "int4", IntStream.range(0, claves.size()).boxed().toArray(Integer[]::new)));
+        }, LEER_LIBROS, mismaClave);
+    }
+
+    public void relacionarAutores(List<LibroAutor> relaciones) {
+        if (relaciones.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(RELACIONAR_AUTORES, ps -> {
+            ps.setArray(1, arreglo(ps, "int8", relaciones.stream().map(LibroAutor::libro).toArray(Long[]::new)));
+            ps.setArray(2, arreglo(ps, "int8", relaciones.stream().map(LibroAutor::autor).toArray(Long[]::new)));
+            ps.setArray(3, arreglo(ps, "int4", relaciones.stream().map(LibroAutor::posicion).toArray(Integer[]::new)));
+        });
+    }
+
+    public void relacionarIdiomas(List<LibroIdioma> relaciones) {
+        if (relaciones.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(RELACIONAR_IDIOMAS, ps -> {
+            ps.setArray(1, arreglo(ps, "int8", relaciones.stream().map(LibroIdioma::libro).toArray(Long[]::new)));
+            ps.setArray(2, arreglo(ps, "int8", relaciones.stream().map(LibroIdioma::idioma).toArray(Long[]::new)));
+        });
+    }
+
+    // nombres: clave -> valor de la otra columna única (el nombre del autor; idiomas y libros repiten la clave). Si el
+    // INSERT saltó una fila por esa otra restricción, la lectura la encuentra por ahí. Lo que no aparece por ninguna de las dos queda fuera del resultado.
+    private Altas alta(String insertar, PreparedStatementSetter valores, String leer, Map<String, String> nombres) {
+        Map<String, Long> ids = new HashMap<>();
+        if (nombres.isEmpty()) {
+            return new Altas(ids, Set.of());
+        }
+        jdbcTemplate.query(insertar, valores, fila -> {
+            ids.put(fila.getString(2), fila.getLong(1));
+        });
+        Set<String> nuevas = new HashSet<>(ids.keySet());
+
+        List<String> faltantes = nombres.keySet().stream().filter(clave -> !ids.containsKey(clave)).toList();
+        if (!faltantes.isEmpty()) {
+            Map<String, String> clavePorNombre = new HashMap<>();
+            faltantes.forEach(clave -> clavePorNombre.putIfAbsent(nombres.get(clave), clave));
+            jdbcTemplate.query(leer, ps -> {
+                ps.setArray(1, arreglo(ps, "varchar", faltantes.toArray(String[]::new)));
+                ps.setArray(2, arreglo(ps, "varchar", clavePorNombre.keySet().toArray(String[]::new)));
+            }, fila -> {
+                String clave = nombres.containsKey(fila.getString(2)) ? fila.getString(2) : clavePorNombre.get(fila.getString(3));
+                if (clave != null) {
+                    ids.putIfAbsent(clave, fila.getLong(1));
+                }
+            });
+        }
+        return new Altas(ids, nuevas);
+    }
+
+    private static Array arreglo(PreparedStatement ps, String tipo, Object[] valores) throws SQLException {
+        return ps.getConnection().createArrayOf(tipo, valores);
+    }
+
+    private static String recortar(String texto) {
+        return texto.length() > LONGITUD_MAXIMA ? texto.substring(0, LONGITUD_MAXIMA) : texto;
+    }
+
+    // ids: clave -> id de cada fila, nueva o existente. nuevas: las claves que insertó esta llamada.
+    public record Altas(Map<String, Long> ids, Set<String> nuevas) {
+    }
+
+    public record LibroAutor(long libro, long autor, int posicion) {
+    }
+
+    public record LibroIdioma(long libro, long idioma) {
+    }
+}
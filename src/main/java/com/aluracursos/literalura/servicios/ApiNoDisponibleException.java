@@ -0,0 +1,21 @@
+package com.aluracursos.literalura.servicios;
+
+// Gutendex no respondió bien después de los reintentos, respondió un error que no se reintenta o el circuito
+// está abierto. estado es el código HTTP, o -1 si no hubo respuesta.
+public class ApiNoDisponibleException extends RuntimeException {
+    private final int estado;
+
+    public ApiNoDisponibleException(String mensaje, int estado) {
+        super(mensaje);
+        this.estado = estado;
+    }
+
+    public ApiNoDisponibleException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+        this.estado = -1;
+    }
+
+    public int getEstado() {
+        return estado;
+    }
+}
@@ -0,0 +1,49 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.LibroRepository;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BusquedaLocal {
+    private final LibroRepository libroRepository;
+    private final NormalizadorTexto normalizadorTexto;
+    private final IndiceInvertido indiceInvertido;
+
+    public BusquedaLocal(LibroRepository libroRepository, NormalizadorTexto normalizadorTexto, IndiceInvertido indiceInvertido) {
+        this.libroRepository = libroRepository;
+        this.normalizadorTexto = normalizadorTexto;
+        this.indiceInvertido = indiceInvertido;
+    }
+
+    // Primero el índice en memoria (sin ir a la base); los trigramas de Postgres quedan para errores de tipeo.
+    public List<LibroResumen> buscar(String texto, int limite) {
+        if (indiceInvertido.habilitado()) {
+            List<LibroResumen> enMemoria = indiceInvertido.buscar(texto, limite);
+            if (!enMemoria.isEmpty()) {
+                return enMemoria;
+            }
+        }
+
+        String textoNormalizado = normalizadorTexto.normalizar(texto, NormalizadorTexto.LONGITUD_TITULO);
+        if (textoNormalizado == null || textoNormalizado.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = libroRepository.buscarIdsPorSimilitud(textoNormalizado, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, LibroResumen> porId = libroRepository.findResumenByIds(ids).stream()
+                .collect(Collectors.toMap(LibroResumen::id, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
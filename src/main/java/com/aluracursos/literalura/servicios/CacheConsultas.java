@@ -0,0 +1,75 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.Autor;
+import com.aluracursos.literalura.modelos.Libro;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Caché de segundo nivel y de consultas de Hibernate. Lo que se guarda por JPA se invalida solo;
+// las escrituras JDBC avisan con LoteGuardado, LibroRegistrado o DescargasActualizadas y aquí se descartan las consultas,
+// colecciones y entidades afectadas. Un lote puede haber cambiado filas ya cacheadas (el gutendex_id que se completa,
+// las claves que rehace RellenoClavesNormalizadas) sin saber cuáles, así que invalidar descarta libros y autores enteros.
+@Service
+public class CacheConsultas {
+    private final SessionFactory sessionFactory;
+
+    public CacheConsultas(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarLote(PersistenciaLotes.LoteGuardado lote) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRegistrarLibro(RegistroLibros.LibroRegistrado registrado) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alActualizarDescargas(ActualizacionDescargas.DescargasActualizadas actualizadas) {
+        Cache cache = sessionFactory.getCache();
+        actualizadas.ids().forEach(id -> cache.evictEntityData(Libro.class, id));
+        cache.evictQueryRegions();
+    }
+
+    public void invalidar() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictQueryRegions();
+        cache.evictEntityData(Libro.class);
+        cache.evictEntityData(Autor.class);
+        cache.evictCollectionData(Autor.class.getName() + ".libros");
+        cache.evictCollectionData(Libro.class.getName() + ".autores");
+        cache.evictCollectionData(Libro.class.getName() + ".idiomas");
+    }
+
+    public boolean estadisticasHabilitadas() {
+        return sessionFactory.getStatistics().isStatisticsEnabled();
+    }
+
+    public EstadisticasSegundoNivel estadisticas() {
+        Statistics estadisticas = sessionFactory.getStatistics();
+        return new EstadisticasSegundoNivel(
+                estadisticas.getSecondLevelCacheHitCount(), estadisticas.getSecondLevelCacheMissCount(),
+                estadisticas.getQueryCacheHitCount(), estadisticas.getQueryCacheMissCount(),
+                estadisticas.getPrepareStatementCount());
+    }
+
+    public record EstadisticasSegundoNivel(long aciertosEntidades, long fallosEntidades,
+                                           long aciertosConsultas, long fallosConsultas, long sentenciasSql) {
+        public double tasaAciertosEntidades() {
+            long total = aciertosEntidades + fallosEntidades;
+            return total == 0 ? 0 : (double) aciertosEntidades / total;
+        }
+
+        public double tasaAciertosConsultas() {
+            long total = aciertosConsultas + fallosConsultas;
+            return total == 0 ? 0 : (double) aciertosConsultas / total;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.aluracursos.literalura.servicios;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Las entradas vencidas se conservan durante la retención: sirven para revalidar con su ETag y como respaldo si
+// Gutendex no responde. Pasado ese plazo se borran, al leerlas o al arrancar. El disco tiene un tope en bytes y,
+// al superarlo, se borran primero los archivos escritos hace más tiempo.
+@Service
+public class CacheRespuestas {
+    private static final Logger logger = LoggerFactory.getLogger(CacheRespuestas.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final String EXTENSION = ".cache";
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+
+    private final ConsumoAPI consumoAPI;
+    private final Duration ttl;
+    private final Duration retencion;
+    private final Path directorio;
+    private final long tamanoDisco;
+    private final Map<String, Entrada> memoria;
+
+    // Bytes ocupados en disco según las escrituras y borrados de este proceso; se recalcula al arrancar.
+    private final Object disco = new Object();
+    private long bytesDisco;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong aciertosDisco = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong revalidaciones = new AtomicLong();
+    private final AtomicLong respaldos = new AtomicLong();
+
+    public CacheRespuestas(ConsumoAPI consumoAPI, int capacidad, Duration ttl, Duration retencion, String directorio,
+                           DataSize tamanoDisco) {
+        this(consumoAPI, capacidad, ttl, retencion, directorio, tamanoDisco, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public CacheRespuestas(ConsumoAPI consumoAPI,
+                           @Value("${literalura.cache.capacidad:256}") int capacidad,
+                           @Value("${literalura.cache.ttl:PT10M}") Duration ttl,
+                           @Value("${literalura.cache.retencion-vencidas:P1D}") Duration retencion,
+                           @Value("${literalura.cache.directorio:}") String directorio,
+                           @Value("${literalura.cache.tamano-disco:64MB}") DataSize tamanoDisco,
+                           MeterRegistry registro) {
+        this.consumoAPI = consumoAPI;
+        this.ttl = ttl;
+        this.retencion = retencion;
+        this.directorio = directorio == null || directorio.isBlank() ? null : Path.of(directorio);
+        this.tamanoDisco = tamanoDisco.toBytes();
+        this.memoria = new LinkedHashMap<>(capacidad * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> masAntigua) {
+                return size() > capacidad;
+            }
+        };
+        limpiarDisco();
+        registrarMetricas(registro);
+    }
+
+    public String obtenerDatos(String url) {
+        String clave = normalizarUrl(url);
+        long ahora = System.currentTimeMillis();
+
+        Entrada entrada;
+        synchronized (memoria) {
+            entrada = memoria.get(clave);
+        }
+        boolean desdeDisco = false;
+        if (entrada == null) {
+            entrada = leerDisco(clave, ahora);
+            if (entrada != null) {
+                desdeDisco = true;
+                guardarEnMemoria(clave, entrada);
+            }
+        }
+        if (entrada != null && entrada.expiraEn() <= ahora - retencion.toMillis()) {
+            entrada = null;
+        }
+        if (entrada != null && entrada.expiraEn() > ahora) {
+            aciertos.incrementAndGet();
+            if (desdeDisco) {
+                aciertosDisco.incrementAndGet();
+            }
+            return entrada.cuerpo();
+        }
+
+        HttpResponse<String> respuesta;
+        try {
+            respuesta = consumoAPI.obtenerRespuesta(url, entrada != null ? entrada.etag() : null);
+        } catch (ApiNoDisponibleException e) {
+            // Un 4xx (salvo 429) dice que la consulta ya no vale; sólo se cubren las caídas y la saturación.
+            if (entrada == null || (e.getEstado() >= 400 && e.getEstado() < 500 && e.getEstado() != 429)) {
+                throw e;
+            }
+            return respaldo(url, entrada, e.getMessage());
+        }
+        if (respuesta.statusCode() == 304 && entrada != null) {
+            revalidaciones.incrementAndGet();
+            Entrada renovada = new Entrada(entrada.cuerpo(), entrada.etag(), ahora + ttlDe(respuesta).toMillis());
+            guardar(clave, renovada);
+            return renovada.cuerpo();
+        }
+
+        fallos.incrementAndGet();
+        if (respuesta.statusCode() == 200) {
+            String etag = respuesta.headers().firstValue("ETag").orElse(null);
+            guardar(clave, new Entrada(respuesta.body(), etag, ahora + ttlDe(respuesta).toMillis()));
+        }
+        return respuesta.body();
+    }
+
+    public EstadisticasCache estadisticas() {
+        int entradas;
+        synchronized (memoria) {
+            entradas = memoria.size();
+        }
+        return new EstadisticasCache(aciertos.get(), aciertosDisco.get(), fallos.get(), revalidaciones.get(),
+                respaldos.get(), entradas);
+    }
+
+    // Cada llamada termina en un solo resultado; los aciertos desde disco son una parte de los aciertos.
+    private void registrarMetricas(MeterRegistry registro) {
+        contador(registro, "acierto", aciertos);
+        contador(registro, "fallo", fallos);
+        contador(registro, "revalidacion", revalidaciones);
+        contador(registro, "respaldo", respaldos);
+        FunctionCounter.builder("literalura.cache.respuestas.disco", aciertosDisco, AtomicLong::get)
+                .description("Aciertos de la caché de respuestas servidos desde el disco")
+                .register(registro);
+        Gauge.builder("literalura.cache.respuestas.entradas", this, cache -> cache.estadisticas().entradas())
+                .description("Respuestas guardadas en memoria")
+                .register(registro);
+        Gauge.builder("literalura.cache.respuestas.bytes-disco", this, CacheRespuestas::bytesEnDisco)
+                .description("Espacio ocupado por la caché de respuestas en disco")
+                .baseUnit("bytes")
+                .register(registro);
+    }
+
+    private static void contador(MeterRegistry registro, String resultado, AtomicLong valor) {
+        FunctionCounter.builder("literalura.cache.respuestas", valor, AtomicLong::get)
+                .description("Consultas a Gutendex atendidas por la caché de respuestas, por resultado")
+                .tag("resultado", resultado)
+                .register(registro);
+    }
+
+    private long bytesEnDisco() {
+        synchronized (disco) {
+            return bytesDisco;
+        }
+    }
+
+    // Gutendex no distingue mayúsculas en sus parámetros, así que la clave ordena y pasa a minúsculas la consulta.
+    static String normalizarUrl(String url) {
+        URI uri = URI.create(url.trim());
+        String ruta = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        String consulta = "";
+        if (uri.getRawQuery() != null) {
+            consulta = Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(parametro -> !parametro.isEmpty())
+                    .map(parametro -> URLDecoder.decode(parametro, StandardCharsets.UTF_8).trim().toLowerCase(Locale.ROOT))
+                    .map(parametro -> URLEncoder.encode(parametro, StandardCharsets.UTF_8).replace("%3D", "="))
+                    .sorted()
+                    .collect(Collectors.joining("&", "?", ""));
+        }
+        return uri.getScheme().toLowerCase(Locale.ROOT) + "://" + uri.getRawAuthority().toLowerCase(Locale.ROOT) + ruta + consulta;
+    }
+
+    private Duration ttlDe(HttpResponse<String> respuesta) {
+        return respuesta.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(coincidencia -> Duration.ofSeconds(Long.parseLong(coincidencia.group(1))))
+                .orElse(ttl);
+    }
+
+    private String respaldo(String url, Entrada vencida, String motivo) {
+        respaldos.incrementAndGet();
+        logger.warn("Se usa la respuesta vencida de " + url + ": " + motivo);
+        return vencida.cuerpo();
+    }
+
+    private void guardar(String clave, Entrada entrada) {
+        guardarEnMemoria(clave, entrada);
+        escribirDisco(clave, entrada);
+    }
+
+    private void guardarEnMemoria(String clave, Entrada entrada) {
+        synchronized (memoria) {
+            memoria.put(clave, entrada);
+        }
+    }
+
+    private Entrada leerDisco(String clave, long ahora) {
+        if (directorio == null) {
+            return null;
+        }
+        Path archivo = archivoDe(clave);
+        if (!Files.exists(archivo)) {
+            return null;
+        }
+        Entrada entrada;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            long expiraEn = buffer.getLong();
+            String etag = leerTexto(buffer);
+            String cuerpo = leerTexto(buffer);
+            entrada = new Entrada(cuerpo, etag.isEmpty() ? null : etag, expiraEn);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo leer la caché en disco " + archivo + ": " + e.getMessage());
+            return null;
+        }
+        if (entrada.expiraEn() <= ahora - retencion.toMillis()) {
+            borrar(archivo);
+            return null;
+        }
+        return entrada;
+    }
+
+    // Cada escritura usa su propio temporal, así dos hilos que guardan la misma clave no se pisan el archivo a
+    // medio escribir; el último movimiento gana.
+    private void escribirDisco(String clave, Entrada entrada) {
+        if (directorio == null) {
+            return;
+        }
+        Path temporal = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream salida = new DataOutputStream(bytes)) {
+                salida.writeLong(entrada.expiraEn());
+                escribirTexto(salida, entrada.etag() != null ? entrada.etag() : "");
+                escribirTexto(salida, entrada.cuerpo());
+            }
+            if (bytes.size() > tamanoDisco) {
+                return;
+            }
+            Files.createDirectories(directorio);
+            Path archivo = archivoDe(clave);
+            temporal = Files.createTempFile(directorio, archivo.getFileName().toString(), EXTENSION_TEMPORAL);
+            Files.write(temporal, bytes.toByteArray());
+            synchronized (disco) {
+                long anterior = Files.exists(archivo) ? Files.size(archivo) : 0;
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                bytesDisco += bytes.size() - anterior;
+                if (bytesDisco > tamanoDisco) {
+                    recortarDisco(archivo);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir la caché en disco: " + e.getMessage());
+            if (temporal != null) {
+                borrar(temporal);
+            }
+        }
+    }
+
+    // Al arrancar: borra los temporales que dejó una escritura interrumpida y las entradas fuera de la retención,
+    // y cuenta los bytes de las que quedan.
+    private void limpiarDisco() {
+        if (directorio == null || !Files.isDirectory(directorio)) {
+            return;
+        }
+        long limite = System.currentTimeMillis() - retencion.toMillis();
+        long bytes = 0;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : archivos.toList()) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(EXTENSION_TEMPORAL)) {
+                    Files.deleteIfExists(archivo);
+                } else if (nombre.endsWith(EXTENSION)) {
+                    if (expiraEn(archivo) <= limite) {
+                        Files.deleteIfExists(archivo);
+                    } else {
+                        bytes += Files.size(archivo);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo limpiar la caché en disco " + directorio + ": " + e.getMessage());
+        }
+        synchronized (disco) {
+            bytesDisco = bytes;
+            if (bytesDisco > tamanoDisco) {
+                recortarDisco(null);
+            }
+        }
+    }
+
+    // Se llama con el monitor de disco tomado. Borra por fecha de escritura hasta quedar bajo el tope, sin tocar
+    // el archivo recién escrito.
+    private void recortarDisco(Path conservar) {
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.filter(archivo -> archivo.getFileName().toString().endsWith(EXTENSION))
+                    .filter(archivo -> !archivo.equals(conservar))
+                    .sorted(Comparator.comparing(CacheRespuestas::modificado))
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("No se pudo recortar la caché en disco " + directorio + ": " + e.getMessage());
+            return;
+        }
+        for (Path archivo : archivos) {
+            if (bytesDisco <= tamanoDisco) {
+                return;
+            }
+            try {
+                long tamano = Files.size(archivo);
+                if (Files.deleteIfExists(archivo)) {
+                    bytesDisco -= tamano;
+                }
+            } catch (IOException e) {
+                logger.warn("No se pudo borrar " + archivo + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void borrar(Path archivo) {
+        try {
+            synchronized (disco) {
+                if (!Files.exists(archivo)) {
+                    return;
+                }
+                long tamano = Files.size(archivo);
+                if (Files.deleteIfExists(archivo) && archivo.getFileName().toString().endsWith(EXTENSION)) {
+                    bytesDisco -= tamano;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    private static long expiraEn(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(Long.BYTES);
+            canal.read(cabecera, 0);
+            return cabecera.hasRemaining() ? Long.MIN_VALUE : cabecera.flip().getLong();
+        }
+    }
+
+    private static FileTime modificado(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerTexto(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path archivoDe(String clave) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(clave.getBytes(StandardCharsets.UTF_8));
+            return directorio.resolve(HexFormat.of().formatHex(hash) + EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entrada(String cuerpo, String etag, long expiraEn) {
+    }
+
+    // respaldos: respuestas vencidas devueltas porque la API falló.
+    public record EstadisticasCache(long aciertos, long aciertosDisco, long fallos, long revalidaciones, long respaldos,
+                                    int entradas) {
+        public double tasaAciertos() {
+            long total = aciertos + fallos + revalidaciones;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.aluracursos.literalura.servicios;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+
+// Después de fallosParaAbrir fallos seguidos deja de llamar a la API durante "espera"; pasado ese tiempo
+// deja pasar una sola llamada de prueba y, según cómo le vaya, vuelve a cerrarse o a abrirse.
+class CircuitoApi {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitoApi.class);
+
+    enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int fallosParaAbrir;
+    private final long esperaNanos;
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long desde;
+
+    CircuitoApi(int fallosParaAbrir, Duration espera) {
+        this.fallosParaAbrir = fallosParaAbrir;
+        this.esperaNanos = espera.toNanos();
+    }
+
+    // En SEMIABIERTO la prueba en curso bloquea a las demás; si no informa a tiempo se permite otra.
+    synchronized boolean permitir() {
+        if (estado == Estado.CERRADO) {
+            return true;
+        }
+        long ahora = System.nanoTime();
+        if (ahora - desde < esperaNanos) {
+            return false;
+        }
+        estado = Estado.SEMIABIERTO;
+        desde = ahora;
+        return true;
+    }
+
+    synchronized void exito() {
+        if (estado != Estado.CERRADO) {
+            logger.info("La API volvió a responder; circuito cerrado");
+        }
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+    }
+
+    synchronized void fallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+            if (estado != Estado.ABIERTO) {
+                logger.warn("Circuito abierto tras " + fallosSeguidos + " fallos seguidos de la API");
+            }
+            estado = Estado.ABIERTO;
+            desde = System.nanoTime();
+        }
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
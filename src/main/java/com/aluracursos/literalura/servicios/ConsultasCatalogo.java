@@ -0,0 +1,78 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.AutorConLibros;
+import com.aluracursos.literalura.modelos.AutorLibroResumen;
+import com.aluracursos.literalura.modelos.AutorResumen;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.AutorRepository;
+import com.aluracursos.literalura.repository.LibroRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Consultas de solo lectura del catálogo local, compartidas por el menú de consola y la API REST.
+// Los listados paginan por clave: devuelven hasta "limite" filas con id mayor a ultimoId.
+@Service
+public class ConsultasCatalogo {
+    private final LibroRepository libroRepository;
+    private final AutorRepository autorRepository;
+    private final RankingDescargas rankingDescargas;
+
+    public ConsultasCatalogo(LibroRepository libroRepository, AutorRepository autorRepository, RankingDescargas rankingDescargas) {
+        this.libroRepository = libroRepository;
+        this.autorRepository = autorRepository;
+        this.rankingDescargas = rankingDescargas;
+    }
+
+    // El ranking en memoria responde sin tocar la base; solo si no cubre el top pedido se consulta.
+    public List<LibroResumen> top(String idioma, int n) {
+        PageRequest primeros = PageRequest.of(0, n);
+        return idioma == null || idioma.isEmpty()
+                ? rankingDescargas.top(n).orElseGet(() -> libroRepository.findTopPorDescargas(primeros))
+                : rankingDescargas.topPorIdioma(idioma, n).orElseGet(() -> libroRepository.findTopPorIdiomas(List.of(idioma), primeros));
+    }
+
+    public List<LibroResumen> libros(long ultimoId, int limite) {
+        return libroRepository.findPaginaLibros(ultimoId, Limit.of(limite));
+    }
+
+    public List<LibroResumen> librosPorIdiomas(Collection<String> idiomas, long ultimoId, int limite) {
+        return libroRepository.findPaginaPorIdiomas(idiomas, ultimoId, Limit.of(limite));
+    }
+
+    public List<AutorResumen> autores(long ultimoId, int limite) {
+        return autorRepository.findPaginaAutores(ultimoId, Limit.of(limite));
+    }
+
+    // Una consulta por página para los ids (índice GiST sobre vida) y otra para los títulos de todos ellos.
+    public List<AutorConLibros> autoresVivos(int minima, int maxima, long ultimoId, int limite) {
+        List<Long> ids = autorRepository.findIdsVivosEnPeriodo(minima, maxima, ultimoId, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<AutorLibroResumen>> filasPorAutor = new LinkedHashMap<>();
+        ids.forEach(id -> filasPorAutor.put(id, new ArrayList<>()));
+        autorRepository.findAutoresConLibrosByIds(ids)
+                .forEach(fila -> filasPorAutor.get(fila.autorId()).add(fila));
+
+        List<AutorConLibros> autores = new ArrayList<>(ids.size());
+        for (List<AutorLibroResumen> filas : filasPorAutor.values()) {
+            if (filas.isEmpty()) {
+                continue;
+            }
+            AutorLibroResumen autor = filas.get(0);
+            List<String> libros = filas.stream()
+                    .map(AutorLibroResumen::titulo)
+                    .filter(Objects::nonNull)
+                    .toList();
+            autores.add(new AutorConLibros(autor.autorId(), autor.nombre(), autor.anoDeNacimiento(), autor.anoDeMuerte(), libros));
+        }
+        return autores;
+    }
+}
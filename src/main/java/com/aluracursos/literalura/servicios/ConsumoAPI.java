@@ -1,29 +1,384 @@
 package com.aluracursos.literalura.servicios;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Todas las llamadas pasan por el mismo camino: circuito, límite de tasa compartido, timeouts y reintentos
+// con retroceso exponencial aleatorio ante 429, 5xx y errores de red. Las peticiones iguales que están
+// en curso al mismo tiempo se resuelven con una sola llamada (salvo obtenerFlujo, cuyo cuerpo se lee una vez).
+// maxConcurrencia acota las llamadas a la vez de todos los caminos: síncrono, asíncrono y por flujo.
 @Service
 public class ConsumoAPI {
+    private static final int MAX_CONCURRENCIA_POR_DEFECTO = 16;
+    private static final Duration RETRY_AFTER_MAXIMO = Duration.ofMinutes(1);
+
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Semaphore permisos;
+    private final Queue<Runnable> pendientes = new ConcurrentLinkedQueue<>();
+    private final Map<String, CompletableFuture<HttpResponse<String>>> enCurso = new ConcurrentHashMap<>();
+    private final Resiliencia resiliencia;
+    private final LimitadorTasa limitador;
+    private final CircuitoApi circuito;
+    private final MeterRegistry registro;
+    private final DistributionSummary bytesRecibidos;
+    private final Counter coalescidas;
+
+    public ConsumoAPI() {
+        this(MAX_CONCURRENCIA_POR_DEFECTO, Metrics.globalRegistry, Resiliencia.POR_DEFECTO);
+    }
+
+    @Autowired
+    public ConsumoAPI(@Value("${literalura.api.max-concurrencia:16}") int maxConcurrencia,
+                      MeterRegistry registro,
+                      @Value("${literalura.api.timeout-conexion:PT5S}") Duration timeoutConexion,
+                      @Value("${literalura.api.timeout-lectura:PT30S}") Duration timeoutLectura,
+                      @Value("${literalura.api.reintentos:3}") int reintentos,
+                      @Value("${literalura.api.retroceso-base:PT0.2S}") Duration retrocesoBase,
+                      @Value("${literalura.api.retroceso-maximo:PT10S}") Duration retrocesoMaximo,
+                      @Value("${literalura.api.solicitudes-por-segundo:10}") double solicitudesPorSegundo,
+                      @Value("${literalura.api.rafaga:20}") int rafaga,
+                      @Value("${literalura.api.circuito.fallos:5}") int fallosParaAbrir,
+                      @Value("${literalura.api.circuito.espera:PT30S}") Duration esperaCircuito) {
+        this(maxConcurrencia, registro, new Resiliencia(timeoutConexion, timeoutLectura, reintentos, retrocesoBase,
+                retrocesoMaximo, solicitudesPorSegundo, rafaga, fallosParaAbrir, esperaCircuito));
+    }
+
+    public ConsumoAPI(int maxConcurrencia, MeterRegistry registro, Resiliencia resiliencia) {
+        this.registro = registro;
+        this.resiliencia = resiliencia;
+        this.limitador = new LimitadorTasa(resiliencia.solicitudesPorSegundo(), resiliencia.rafaga());
+        this.circuito = new CircuitoApi(resiliencia.fallosParaAbrir(), resiliencia.esperaCircuito());
+        this.bytesRecibidos = DistributionSummary.builder("literalura.api.bytes")
+                .description("Tamaño de las respuestas de Gutendex")
+                .baseUnit("bytes")
+                .register(registro);
+        this.coalescidas = Counter.builder("literalura.api.coalescidas")
+                .description("Peticiones resueltas con la respuesta de otra igual que estaba en curso")
+                .register(registro);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "consumo-api-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(resiliencia.timeoutConexion())
+                .executor(executor)
+                .build();
+        this.permisos = new Semaphore(maxConcurrencia);
+    }
+
     public String obtenerDatos(String url){
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
+        return obtenerRespuesta(url, null).body();
+    }
+
+    // Devuelve 2xx y 304; cualquier otro estado termina en ApiNoDisponibleException.
+    public HttpResponse<String> obtenerRespuesta(String url, String etag) {
+        String clave = etag == null ? url : url + " " + etag;
+        CompletableFuture<HttpResponse<String>> propia = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            coalescidas.increment();
+            return esperar(existente);
+        }
+        try {
+            tomarPermiso();
+            HttpResponse<String> respuesta;
+            try {
+                respuesta = ejecutar(peticion(url, etag), HttpResponse.BodyHandlers.ofString());
+            } finally {
+                liberarPermiso();
+            }
+            propia.complete(respuesta);
+            return respuesta;
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    // El timeout de lectura cubre hasta recibir los encabezados; el cuerpo se lee después, a medida que se consume.
+    // El permiso se devuelve al cerrar el flujo, así que quien lo pide tiene que cerrarlo siempre.
+    public InputStream obtenerFlujo(String url) {
+        tomarPermiso();
+        try {
+            return new FlujoConPermiso(ejecutar(peticion(url, null), HttpResponse.BodyHandlers.ofInputStream()).body());
+        } catch (RuntimeException e) {
+            liberarPermiso();
+            throw e;
+        }
+    }
+
+    public CompletableFuture<String> obtenerDatosAsync(String url) {
+        CompletableFuture<HttpResponse<String>> propia = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> existente = enCurso.putIfAbsent(url, propia);
+        if (existente != null) {
+            coalescidas.increment();
+            return existente.thenApply(HttpResponse::body);
+        }
+        propia.whenComplete((respuesta, error) -> enCurso.remove(url, propia));
+        pendientes.add(() -> enviar(url, propia));
+        despacharPendientes();
+        return propia.thenApply(HttpResponse::body);
+    }
+
+    public CompletableFuture<List<String>> obtenerTodos(List<String> urls) {
+        List<CompletableFuture<String>> peticiones = urls.stream()
+                .map(this::obtenerDatosAsync)
+                .toList();
+        return CompletableFuture.allOf(peticiones.toArray(CompletableFuture[]::new))
+                .thenApply(v -> peticiones.stream().map(CompletableFuture::join).toList());
+    }
+
+    // Los reintentos esperan dentro del hilo del executor; el permiso se conserva mientras tanto, así la
+    // concurrencia nunca supera maxConcurrencia aunque haya llamadas esperando su turno.
+    private void enviar(String url, CompletableFuture<HttpResponse<String>> resultado) {
+        try {
+            executor.execute(() -> {
+                try {
+                    resultado.complete(ejecutar(peticion(url, null), HttpResponse.BodyHandlers.ofString()));
+                } catch (RuntimeException e) {
+                    resultado.completeExceptionally(e);
+                } finally {
+                    liberarPermiso();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            liberarPermiso();
+            resultado.completeExceptionally(e);
+        }
+    }
+
+    private HttpRequest peticion(String url, String etag) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
-                .build();
-        HttpResponse<String> response = null;
+                .timeout(resiliencia.timeoutLectura());
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder.build();
+    }
+
+    private <T> HttpResponse<T> ejecutar(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador) {
+        for (int intento = 0; ; intento++) {
+            if (!circuito.permitir()) {
+                throw new ApiNoDisponibleException("La API no responde; se reintentará más tarde (" + peticion.uri() + ")", -1);
+            }
+            dormir(limitador.reservar());
+
+            long inicio = System.nanoTime();
+            Duration espera;
+            try {
+                HttpResponse<T> respuesta = client.send(peticion, manejador);
+                medir(inicio, respuesta);
+                int estado = respuesta.statusCode();
+                if (!esReintentable(estado)) {
+                    circuito.exito();
+                    if (estado >= 400) {
+                        descartar(respuesta);
+                        throw new ApiNoDisponibleException("La API respondió " + estado + " para " + peticion.uri(), estado);
+                    }
+                    return respuesta;
+                }
+                circuito.fallo();
+                descartar(respuesta);
+                if (intento >= resiliencia.reintentos()) {
+                    throw new ApiNoDisponibleException("La API respondió " + estado + " para " + peticion.uri()
+                            + " después de " + (intento + 1) + " intentos", estado);
+                }
+                int intentoActual = intento;
+                espera = retryAfter(respuesta).orElseGet(() -> resiliencia.retroceso(intentoActual));
+                contarReintento(String.valueOf(estado));
+            } catch (IOException e) {
+                medirError(inicio, e);
+                circuito.fallo();
+                if (intento >= resiliencia.reintentos()) {
+                    throw new ApiNoDisponibleException("No se pudo consultar " + peticion.uri()
+                            + " después de " + (intento + 1) + " intentos", e);
+                }
+                espera = resiliencia.retroceso(intento);
+                contarReintento(e.getClass().getSimpleName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiNoDisponibleException("La consulta a " + peticion.uri() + " fue interrumpida", e);
+            }
+            dormir(espera.toNanos());
+        }
+    }
+
+    private static boolean esReintentable(int estado) {
+        return estado == 429 || estado >= 500;
+    }
+
+    // Retry-After en segundos (429 y 503); la forma con fecha HTTP no la usa Gutendex.
+    private static Optional<Duration> retryAfter(HttpResponse<?> respuesta) {
+        return respuesta.headers().firstValue("Retry-After")
+                .filter(valor -> valor.trim().matches("\\d+"))
+                .map(valor -> Duration.ofSeconds(Long.parseLong(valor.trim())))
+                .map(espera -> espera.compareTo(RETRY_AFTER_MAXIMO) > 0 ? RETRY_AFTER_MAXIMO : espera);
+    }
+
+    private static void descartar(HttpResponse<?> respuesta) {
+        if (respuesta.body() instanceof InputStream cuerpo) {
+            try {
+                cuerpo.close();
+            } catch (IOException ignorada) {
+                // La conexión se descarta igual.
+            }
+        }
+    }
+
+    private static void dormir(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiNoDisponibleException("La espera para consultar la API fue interrumpida", e);
+        }
+    }
+
+    private static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // Latencia por código de estado; el tamaño sale de Content-Length y, si falta, del largo del cuerpo ya leído.
+    private void medir(long inicio, HttpResponse<?> response) {
+        temporizador(String.valueOf(response.statusCode())).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        long bytes = response.headers().firstValueAsLong("Content-Length")
+                .orElse(response.body() instanceof String cuerpo ? cuerpo.length() : -1);
+        if (bytes >= 0) {
+            bytesRecibidos.record(bytes);
+        }
+    }
+
+    private void medirError(long inicio, Throwable error) {
+        temporizador(error.getClass().getSimpleName()).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer temporizador(String estado) {
+        return Timer.builder("literalura.api.solicitudes")
+                .description("Latencia de las llamadas a Gutendex")
+                .tag("estado", estado)
+                .register(registro);
+    }
+
+    private void contarReintento(String motivo) {
+        Counter.builder("literalura.api.reintentos")
+                .description("Reintentos de llamadas a Gutendex")
+                .tag("motivo", motivo)
+                .register(registro)
+                .increment();
+    }
+
+    // Las llamadas síncronas esperan su permiso en el hilo que llama; las asíncronas esperan en pendientes.
+    private void tomarPermiso() {
         try {
-            response = client
-                    .send(request, HttpResponse.BodyHandlers.ofString());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            permisos.acquire();
         } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            Thread.currentThread().interrupt();
+            throw new ApiNoDisponibleException("La espera para consultar la API fue interrumpida", e);
+        }
+    }
+
+    private void liberarPermiso() {
+        permisos.release();
+        despacharPendientes();
+    }
+
+    // Lanza peticiones en espera mientras haya cupo; nunca bloquea al que llama.
+    private void despacharPendientes() {
+        while (!pendientes.isEmpty() && permisos.tryAcquire()) {
+            Runnable tarea = pendientes.poll();
+            if (tarea == null) {
+                permisos.release();
+                return;
+            }
+            tarea.run();
+        }
+    }
+
+    private class FlujoConPermiso extends FilterInputStream {
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+
+        FlujoConPermiso(InputStream cuerpo) {
+            super(cuerpo);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (cerrado.compareAndSet(false, true)) {
+                    liberarPermiso();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    // solicitudesPorSegundo <= 0 desactiva el límite de tasa.
+    public record Resiliencia(Duration timeoutConexion, Duration timeoutLectura, int reintentos,
+                              Duration retrocesoBase, Duration retrocesoMaximo,
+                              double solicitudesPorSegundo, int rafaga,
+                              int fallosParaAbrir, Duration esperaCircuito) {
+        public static final Resiliencia POR_DEFECTO = new Resiliencia(Duration.ofSeconds(5), Duration.ofSeconds(30), 3,
+                Duration.ofMillis(200), Duration.ofSeconds(10), 10, 20, 5, Duration.ofSeconds(30));
+
+        // Retroceso exponencial con "full jitter": un valor al azar entre 0 y base * 2^intento, con tope.
+        Duration retroceso(int intento) {
+            long tope = Math.min(retrocesoMaximo.toNanos(), retrocesoBase.toNanos() << Math.min(intento, 20));
+            return Duration.ofNanos(ThreadLocalRandom.current().nextLong(tope + 1));
         }
-        String json = response.body();
-        return json;
     }
 }
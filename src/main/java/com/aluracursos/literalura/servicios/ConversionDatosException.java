@@ -0,0 +1,11 @@
+package com.aluracursos.literalura.servicios;
+
+public class ConversionDatosException extends RuntimeException {
+    public ConversionDatosException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+
+    public ConversionDatosException(String mensaje) {
+        super(mensaje);
+    }
+}
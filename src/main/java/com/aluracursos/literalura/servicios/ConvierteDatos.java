@@ -1,20 +1,127 @@
 package com.aluracursos.literalura.servicios;
 
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class ConvierteDatos implements IConvierteDatos {
     private ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader lectorLibros = objectMapper.readerFor(DatosLibros.class);
+    private final MeterRegistry registro;
+
+    public ConvierteDatos() {
+        this(Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public ConvierteDatos(MeterRegistry registro) {
+        this.registro = registro;
+    }
 
     @Override
     public <T> T obtenerDatos(String json, Class<T> clase) {
+        long inicio = System.nanoTime();
         try {
-            return objectMapper.readValue(json,clase);
+            T valor = objectMapper.readValue(json,clase);
+            medir(clase.getSimpleName(), inicio, json.length());
+            return valor;
         } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+            throw new ConversionDatosException("No se pudo convertir el JSON a " + clase.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public <T> T obtenerDatos(InputStream json, Class<T> clase) {
+        long inicio = System.nanoTime();
+        try (json; JsonParser parser = objectMapper.createParser(json)) {
+            T valor = objectMapper.readValue(parser, clase);
+            medir(clase.getSimpleName(), inicio, parser.currentLocation().getByteOffset());
+            return valor;
+        } catch (IOException e) {
+            throw new ConversionDatosException("No se pudo convertir el JSON a " + clase.getSimpleName(), e);
         }
     }
-}
 
+    @Override
+    public Respuesta recorrerLibros(InputStream json, Consumer<DatosLibros> consumidor) {
+        long inicio = System.nanoTime();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ConversionDatosException("Se esperaba un objeto JSON en la respuesta");
+            }
+            Integer total = null;
+            String siguiente = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                if (valor == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (campo) {
+                    case "count" -> total = parser.getIntValue();
+                    case "next" -> siguiente = parser.getText();
+                    case "results" -> leerLibros(parser, consumidor);
+                    default -> parser.skipChildren();
+                }
+            }
+            medir("PaginaLibros", inicio, parser.currentLocation().getByteOffset());
+            return new Respuesta(total, siguiente, List.of());
+        } catch (IOException e) {
+            throw new ConversionDatosException("No se pudo leer la página de libros", e);
+        }
+    }
+
+    @Override
+    public void recorrerLibrosSueltos(InputStream json, Consumer<DatosLibros> consumidor) {
+        long inicio = System.nanoTime();
+        try (MappingIterator<DatosLibros> libros = lectorLibros.readValues(json)) {
+            while (libros.hasNextValue()) {
+                consumidor.accept(libros.nextValue());
+            }
+            medir("LibrosSueltos", inicio, libros.getParser().currentLocation().getByteOffset());
+        } catch (IOException e) {
+            throw new ConversionDatosException("No se pudieron leer los libros", e);
+        }
+    }
+
+    // En recorrerLibros el tiempo incluye lo que tarde el consumidor con cada libro.
+    private void medir(String tipo, long inicio, long bytes) {
+        Timer.builder("literalura.json.conversion")
+                .description("Tiempo de conversión de JSON")
+                .tag("tipo", tipo)
+                .register(registro)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("literalura.json.bytes")
+                .description("Tamaño del JSON convertido")
+                .baseUnit("bytes")
+                .tag("tipo", tipo)
+                .register(registro)
+                .record(bytes);
+    }
+
+    private void leerLibros(JsonParser parser, Consumer<DatosLibros> consumidor) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new ConversionDatosException("Se esperaba una lista en 'results'");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumidor.accept(lectorLibros.readValue(parser));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+public class CosechaCatalogo {
+    private static final Logger logger = LoggerFactory.getLogger(CosechaCatalogo.class);
+    private static final Lote FIN = new Lote(List.of(), null, false);
+
+    private final ConsumoAPI consumoAPI;
+    private final IConvierteDatos convierteDatos;
+    private final IPersistenciaLotes persistencia;
+    private final Path checkpoint;
+    private final int capacidadCola;
+    private final int tamanoLote;
+
+    public CosechaCatalogo(ConsumoAPI consumoAPI,
+                           IConvierteDatos convierteDatos,
+                           IPersistenciaLotes persistencia,
+                           @Value("${literalura.cosecha.checkpoint:cosecha.checkpoint}") String checkpoint,
+                           @Value("${literalura.cosecha.capacidad-cola:8}") int capacidadCola,
+                           @Value("${literalura.cosecha.tamano-lote:32}") int tamanoLote) {
+        this.consumoAPI = consumoAPI;
+        this.convierteDatos = convierteDatos;
+        this.persistencia = persistencia;
+        this.checkpoint = Path.of(checkpoint);
+        this.capacidadCola = capacidadCola;
+        this.tamanoLote = tamanoLote;
+    }
+
+    public ResultadoCosecha cosechar(String urlInicial) {
+        String url = leerCheckpoint().orElse(urlInicial);
+        if (!url.equals(urlInicial)) {
+            logger.info("Reanudando la cosecha desde " + url);
+        }
+
+        BlockingQueue<Lote> cola = new ArrayBlockingQueue<>(capacidadCola);
+        AtomicReference<RuntimeException> errorDescarga = new AtomicReference<>();
+        Thread descarga = new Thread(() -> descargarPaginas(url, cola, errorDescarga), "cosecha-descarga");
+        long inicio = System.nanoTime();
+        int paginas = 0;
+        long libros = 0;
+        long insertados = 0;
+
+        descarga.start();
+        try {
+            Lote lote;
+            while ((lote = cola.take()) != FIN) {
+                insertados += persistencia.guardarLote(lote.libros());
+                libros += lote.libros().size();
+                if (lote.cierraPagina()) {
+                    paginas++;
+                    guardarCheckpoint(lote.siguiente());
+                }
+            }
+            descarga.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La cosecha fue interrumpida", e);
+        } finally {
+            descarga.interrupt();
+        }
+
+        if (errorDescarga.get() != null) {
+            throw errorDescarga.get();
+        }
+        return new ResultadoCosecha(paginas, libros, insertados, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    // Una página se parte en lotes de tamanoLote mientras se lee, así la memoria no depende del tamaño de la página.
+    private void descargarPaginas(String urlInicial, BlockingQueue<Lote> cola, AtomicReference<RuntimeException> error) {
+        String url = urlInicial;
+        try {
+            while (url != null) {
+                List<DatosLibros> actual = new ArrayList<>(tamanoLote);
+                Respuesta respuesta;
+                try (InputStream cuerpo = consumoAPI.obtenerFlujo(url)) {
+                    respuesta = convierteDatos.recorrerLibros(cuerpo, libro -> {
+                        actual.add(libro);
+                        if (actual.size() == tamanoLote) {
+                            encolar(cola, new Lote(List.copyOf(actual), null, false));
+                            actual.clear();
+                        }
+                    });
+                }
+                encolar(cola, new Lote(List.copyOf(actual), respuesta.siguiente(), true));
+                url = respuesta.siguiente();
+            }
+            cola.put(FIN);
+        } catch (InterruptedException | CancellationException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            terminarConError(cola, error, url, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            terminarConError(cola, error, url, e);
+        }
+    }
+
+    private void terminarConError(BlockingQueue<Lote> cola, AtomicReference<RuntimeException> error, String url, RuntimeException e) {
+        logger.error("Error al descargar la página " + url + ": " + e.getMessage());
+        error.set(e);
+        try {
+            cola.put(FIN);
+        } catch (InterruptedException interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encolar(BlockingQueue<Lote> cola, Lote lote) {
+        try {
+            cola.put(lote);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("La descarga fue cancelada");
+        }
+    }
+
+    private Optional<String> leerCheckpoint() {
+        try {
+            if (!Files.exists(checkpoint)) {
+                return Optional.empty();
+            }
+            String url = Files.readString(checkpoint).trim();
+            return url.isEmpty() ? Optional.empty() : Optional.of(url);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void guardarCheckpoint(String siguiente) {
+        try {
+            if (siguiente == null) {
+                Files.deleteIfExists(checkpoint);
+                return;
+            }
+            Path temporal = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            Files.writeString(temporal, siguiente);
+            Files.move(temporal, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Lote(List<DatosLibros> libros, String siguiente, boolean cierraPagina) {
+    }
+
+    public record ResultadoCosecha(int paginas, long libros, long insertados, Duration duracion) {
+    }
+}
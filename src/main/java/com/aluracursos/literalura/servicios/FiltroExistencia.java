@@ -0,0 +1,138 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.repository.AutorRepository;
+import com.aluracursos.literalura.repository.LibroRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+// Conjunto compacto de huellas de 64 bits de las claves normalizadas guardadas.
+// Si una clave no está, seguro que no existe en la base y se puede insertar sin consultar antes.
+@Service
+@Order(2)
+public class FiltroExistencia implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(FiltroExistencia.class);
+
+    private final LibroRepository libroRepository;
+    private final AutorRepository autorRepository;
+    private final ConjuntoHuellas titulos = new ConjuntoHuellas();
+    private final ConjuntoHuellas autores = new ConjuntoHuellas();
+
+    public FiltroExistencia(LibroRepository libroRepository, AutorRepository autorRepository) {
+        this.libroRepository = libroRepository;
+        this.autorRepository = autorRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        try (Stream<String> claves = libroRepository.streamTitulosNormalizados()) {
+            claves.forEach(this::registrarLibro);
+        }
+        try (Stream<String> claves = autorRepository.streamNombresNormalizados()) {
+            claves.forEach(this::registrarAutor);
+        }
+        logger.info("Filtro de existencia cargado: %d títulos, %d autores, %d KB (%d bytes por cada 100k claves)"
+                .formatted(titulos.tamano(), autores.tamano(), memoriaBytes() / 1024, bytesPorCienMilClaves()));
+    }
+
+    public boolean puedeExistirLibro(String tituloNormalizado) {
+        return titulos.contiene(huella(tituloNormalizado));
+    }
+
+    public boolean puedeExistirAutor(String nombreNormalizado) {
+        return autores.contiene(huella(nombreNormalizado));
+    }
+
+    public void registrarLibro(String tituloNormalizado) {
+        titulos.agregar(huella(tituloNormalizado));
+    }
+
+    public void registrarAutor(String nombreNormalizado) {
+        autores.agregar(huella(nombreNormalizado));
+    }
+
+    public long memoriaBytes() {
+        return titulos.memoriaBytes() + autores.memoriaBytes();
+    }
+
+    public long bytesPorCienMilClaves() {
+        long claves = titulos.tamano() + autores.tamano();
+        return claves == 0 ? 0 : memoriaBytes() * 100_000 / claves;
+    }
+
+    // FNV-1a de 64 bits sobre UTF-8 con una mezcla final para repartir mejor los bits bajos.
+    static long huella(String clave) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : clave.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Tabla de direccionamiento abierto sobre long[]; el 0 marca las casillas libres.
+    static final class ConjuntoHuellas {
+        private long[] tabla = new long[1 << 10];
+        private int tamano;
+
+        synchronized boolean contiene(long huella) {
+            int mascara = tabla.length - 1;
+            for (int i = (int) huella & mascara; tabla[i] != 0; i = (i + 1) & mascara) {
+                if (tabla[i] == huella) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void agregar(long huella) {
+            if ((tamano + 1) * 2 > tabla.length) {
+                crecer();
+            }
+            if (insertar(tabla, huella)) {
+                tamano++;
+            }
+        }
+
+        synchronized int tamano() {
+            return tamano;
+        }
+
+        synchronized long memoriaBytes() {
+            return (long) tabla.length * Long.BYTES;
+        }
+
+        private void crecer() {
+            long[] nueva = new long[tabla.length * 2];
+            for (long huella : tabla) {
+                if (huella != 0) {
+                    insertar(nueva, huella);
+                }
+            }
+            tabla = nueva;
+        }
+
+        private static boolean insertar(long[] destino, long huella) {
+            int mascara = destino.length - 1;
+            int i = (int) huella & mascara;
+            while (destino[i] != 0) {
+                if (destino[i] == huella) {
+                    return false;
+                }
+                i = (i + 1) & mascara;
+            }
+            destino[i] = huella;
+            return true;
+        }
+    }
+}
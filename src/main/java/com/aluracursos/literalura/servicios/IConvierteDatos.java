@@ -1,5 +1,18 @@
 package com.aluracursos.literalura.servicios;
 
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
 public interface IConvierteDatos {
     <T> T obtenerDatos(String json, Class<T> clase);
+
+    <T> T obtenerDatos(InputStream json, Class<T> clase);
+
+    // Entrega cada libro al consumidor a medida que se lee; la Respuesta devuelta solo trae total y siguiente.
+    Respuesta recorrerLibros(InputStream json, Consumer<DatosLibros> consumidor);
+
+    // Libros sin la envoltura de la página: un arreglo JSON o un objeto por línea (JSON Lines).
+    void recorrerLibrosSueltos(InputStream json, Consumer<DatosLibros> consumidor);
 }
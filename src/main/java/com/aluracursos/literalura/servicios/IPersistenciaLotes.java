@@ -0,0 +1,8 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import java.util.List;
+
+public interface IPersistenciaLotes {
+    int guardarLote(List<DatosLibros> libros);
+}
@@ -0,0 +1,236 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Carga masiva sin consola (--import, --import-json, --import-catalogo), por etapas unidas por colas acotadas
+// (ver Tuberia): descarga -> conversión -> guardado. Cada etapa tiene sus propios hilos, así la red, el parseo y la
+// base trabajan a la vez, y la memoria no depende del tamaño del archivo. Los archivos con libros completos entran
+// directo al guardado. Los títulos repetidos los descarta el guardado: dentro del lote por su clave normalizada y
+// entre lotes con el ON CONFLICT.
+@Service
+public class ImportacionLotes {
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionLotes.class);
+
+    private final ConsumoAPI consumoAPI;
+    private final IConvierteDatos convierteDatos;
+    private final IPersistenciaLotes persistencia;
+    private final Tuberia.Metricas metricas;
+    private final String urlBusqueda;
+    private final int hilosDescarga;
+    private final int hilosConversion;
+    private final int hilosGuardado;
+    private final int capacidadCola;
+    private final int tamanoLote;
+
+    public ImportacionLotes(ConsumoAPI consumoAPI, IConvierteDatos convierteDatos, IPersistenciaLotes persistencia,
+                            String urlBusqueda, int paralelismo, int tamanoLote) {
+        this(consumoAPI, convierteDatos, persistencia, Metrics.globalRegistry,
+                urlBusqueda, paralelismo, 2, 1, 64, tamanoLote);
+    }
+
+    // paralelismo es la cantidad de hilos de descarga, o sea de búsquedas en curso a la vez. Con más de un hilo
+    // de guardado los lotes se escriben en paralelo; AltaCatalogo inserta en orden de clave para no trabarse.
+    @Autowired
+    public ImportacionLotes(ConsumoAPI consumoAPI,
+                            IConvierteDatos convierteDatos,
+                            IPersistenciaLotes persistencia,
+                            MeterRegistry registro,
+                            @Value("${literalura.importacion.url:https://gutendex.com/books/}") String urlBusqueda,
+                            @Value("${literalura.importacion.paralelismo:8}") int paralelismo,
+                            @Value("${literalura.importacion.hilos-conversion:2}") int hilosConversion,
+                            @Value("${literalura.importacion.hilos-guardado:1}") int hilosGuardado,
+                            @Value("${literalura.importacion.capacidad-cola:64}") int capacidadCola,
+                            @Value("${literalura.importacion.tamano-lote:100}") int tamanoLote) {
+        this.consumoAPI = consumoAPI;
+        this.convierteDatos = convierteDatos;
+        this.persistencia = persistencia;
+        this.metricas = new Tuberia.Metricas("importacion", registro);
+        this.urlBusqueda = urlBusqueda;
+        this.hilosDescarga = paralelismo;
+        this.hilosConversion = hilosConversion;
+        this.hilosGuardado = hilosGuardado;
+        this.capacidadCola = capacidadCola;
+        this.tamanoLote = tamanoLote;
+    }
+
+    // Un título por línea (se ignoran las vacías y las que empiezan con #); de cada búsqueda se guarda el
+    // primer resultado, igual que en el menú. Si las descargas no dan abasto, la lectura del archivo espera.
+    public ResultadoImportacion importarTitulos(Path archivo) {
+        long inicio = System.nanoTime();
+        Contadores contadores = new Contadores();
+        Tuberia tuberia = new Tuberia(metricas, capacidadCola);
+        Tuberia.Cola<DatosLibros> aGuardar = etapaGuardado(tuberia, contadores);
+        Tuberia.Cola<Descarga> aConvertir = tuberia.etapa("conversion", hilosConversion,
+                () -> (descarga, salida) -> convertir(descarga, salida, contadores), aGuardar);
+        Tuberia.Cola<String> aDescargar = tuberia.etapa("descarga", hilosDescarga,
+                () -> (titulo, salida) -> salida.accept(descargar(titulo)), aConvertir);
+
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                String titulo = linea.strip();
+                if (titulo.isEmpty() || titulo.startsWith("#")) {
+                    continue;
+                }
+                contadores.leidos.increment();
+                aDescargar.enviar(titulo);
+            }
+            aDescargar.cerrar();
+        } catch (IOException e) {
+            tuberia.detener(new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            tuberia.detener(e);
+        }
+        tuberia.esperar();
+        return contadores.resultado(inicio);
+    }
+
+    // Libros completos en el formato de Gutendex: un objeto por línea (JSON Lines) o un arreglo JSON.
+    // No consulta la API.
+    public ResultadoImportacion importarJson(Path archivo) {
+        return importarLibros(aGuardar -> {
+            LongAdder leidos = new LongAdder();
+            try (InputStream json = Files.newInputStream(archivo)) {
+                convierteDatos.recorrerLibrosSueltos(json, libro -> {
+                    leidos.increment();
+                    aGuardar.accept(libro);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return leidos.sum();
+        });
+    }
+
+    // pg_catalog.csv de Project Gutenberg, leído con el archivo mapeado en memoria. No trae descargas;
+    // leidos cuenta todos los registros y encontrados solo los de texto.
+    public ResultadoImportacion importarCatalogo(Path archivo) {
+        return importarLibros(aGuardar -> new LectorCatalogoCsv().recorrer(archivo, aGuardar));
+    }
+
+    // lector entrega los libros al consumidor y devuelve cuántos registros leyó.
+    private ResultadoImportacion importarLibros(ToLongFunction<Consumer<DatosLibros>> lector) {
+        long inicio = System.nanoTime();
+        Contadores contadores = new Contadores();
+        Tuberia tuberia = new Tuberia(metricas, capacidadCola);
+        Tuberia.Cola<DatosLibros> aGuardar = etapaGuardado(tuberia, contadores);
+        try {
+            contadores.leidos.add(lector.applyAsLong(libro -> {
+                contadores.encontrados.increment();
+                aGuardar.enviar(libro);
+            }));
+            aGuardar.cerrar();
+        } catch (RuntimeException e) {
+            tuberia.detener(e);
+        }
+        tuberia.esperar();
+        return contadores.resultado(inicio);
+    }
+
+    // El guardado, común a todas las importaciones.
+    private Tuberia.Cola<DatosLibros> etapaGuardado(Tuberia tuberia, Contadores contadores) {
+        return tuberia.etapa("guardado", hilosGuardado, () -> new Lote(contadores), null);
+    }
+
+    private Descarga descargar(String titulo) {
+        try {
+            return new Descarga(titulo, consumoAPI.obtenerDatos(urlBusqueda + "?search=" + URLEncoder.encode(titulo, StandardCharsets.UTF_8)));
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo buscar '" + titulo + "': " + e.getMessage());
+            return new Descarga(titulo, null);
+        }
+    }
+
+    private void convertir(Descarga descarga, Consumer<DatosLibros> salida, Contadores contadores) {
+        if (descarga.json() == null) {
+            contadores.fallidos.increment();
+            return;
+        }
+        Respuesta respuesta;
+        try {
+            respuesta = convierteDatos.obtenerDatos(descarga.json(), Respuesta.class);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo leer la respuesta para '" + descarga.titulo() + "': " + e.getMessage());
+            contadores.fallidos.increment();
+            return;
+        }
+        if (respuesta != null && respuesta.resultado() != null && !respuesta.resultado().isEmpty()) {
+            contadores.encontrados.increment();
+            salida.accept(respuesta.resultado().get(0));
+        }
+    }
+
+    // Uno por hilo de guardado; el último lote incompleto se guarda al agotarse la entrada.
+    private class Lote implements Tuberia.Paso<DatosLibros, Void> {
+        private final Contadores contadores;
+        private List<DatosLibros> libros = new ArrayList<>(tamanoLote);
+
+        Lote(Contadores contadores) {
+            this.contadores = contadores;
+        }
+
+        @Override
+        public void procesar(DatosLibros libro, Consumer<Void> salida) {
+            libros.add(libro);
+            if (libros.size() >= tamanoLote) {
+                guardar();
+            }
+        }
+
+        @Override
+        public void terminar(Consumer<Void> salida) {
+            if (!libros.isEmpty()) {
+                guardar();
+            }
+        }
+
+        private void guardar() {
+            contadores.insertados.add(persistencia.guardarLote(libros));
+            libros = new ArrayList<>(tamanoLote);
+        }
+    }
+
+    private static final class Contadores {
+        private final LongAdder leidos = new LongAdder();
+        private final LongAdder encontrados = new LongAdder();
+        private final LongAdder fallidos = new LongAdder();
+        private final LongAdder insertados = new LongAdder();
+
+        ResultadoImportacion resultado(long inicio) {
+            return new ResultadoImportacion(leidos.sum(), encontrados.sum(), fallidos.sum(), insertados.sum(),
+                    Duration.ofNanos(System.nanoTime() - inicio));
+        }
+    }
+
+    // json es null si la búsqueda falló.
+    private record Descarga(String titulo, String json) {
+    }
+
+    public record ResultadoImportacion(long leidos, long encontrados, long fallidos, long insertados, Duration duracion) {
+        public double leidosPorSegundo() {
+            return duracion.isZero() ? leidos : leidos * 1_000_000_000.0 / duracion.toNanos();
+        }
+    }
+}
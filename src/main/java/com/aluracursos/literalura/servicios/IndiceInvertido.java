@@ -0,0 +1,419 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.LibroRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido en memoria: cada token normalizado apunta a una lista ordenada de posiciones de documento.
+// Se guarda en un archivo al cerrar y al arrancar solo se indexan los libros con id mayor al último guardado. El archivo
+// lleva la cantidad de libros y el mayor id: si la base ya no tiene esas mismas filas (se vació, se restauró o se
+// borraron libros) se descarta y el índice se arma de nuevo.
+@Service
+@Order(3)
+public class IndiceInvertido implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(IndiceInvertido.class);
+    private static final int MAGICO = 0x4C495431;
+    private static final int VERSION = 5;
+    private static final int LOTE_CARGA = 1000;
+
+    private final LibroRepository libroRepository;
+    private final NormalizadorTexto normalizadorTexto;
+    private final boolean habilitado;
+    private final Path archivo;
+
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private final List<LibroResumen> documentos = new ArrayList<>();
+    private final Map<Long, Integer> posicionPorId = new HashMap<>();
+    private final TreeMap<String, ListaEnteros> postings = new TreeMap<>();
+    private long ultimoId;
+    // Hay cambios que el archivo guardado todavía no tiene.
+    private boolean modificado;
+
+    public IndiceInvertido(LibroRepository libroRepository,
+                           NormalizadorTexto normalizadorTexto,
+                           @Value("${literalura.indice.habilitado:true}") boolean habilitado,
+                           @Value("${literalura.indice.archivo:indice.snapshot}") String archivo) {
+        this.libroRepository = libroRepository;
+        this.normalizadorTexto = normalizadorTexto;
+        this.habilitado = habilitado;
+        this.archivo = Path.of(archivo);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        cargarSnapshot();
+        int nuevos = sincronizar();
+        logger.info("Índice invertido listo: %d libros, %d tokens (%d nuevos) en %d ms"
+                .formatted(documentos.size(), postings.size(), nuevos, (System.nanoTime() - inicio) / 1_000_000));
+        if (nuevos > 0) {
+            guardarSnapshot();
+        }
+    }
+
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    // Indexa los libros guardados por otras vías (lotes JDBC, importaciones) recorriendo por id desde el último indexado.
+    // Los ids salen de nextval al insertar, no al confirmar: un id menor que la marca puede confirmarse después. Si la
+    // base tiene más libros hasta la marca que el índice, se recorre desde el principio y agregar saltea los ya indexados.
+    public int sincronizar() {
+        if (!habilitado) {
+            return 0;
+        }
+        long desde;
+        int indexados;
+        candado.readLock().lock();
+        try {
+            desde = ultimoId;
+            indexados = documentos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+        if (desde > 0 && libroRepository.countByIdLessThanEqual(desde) > indexados) {
+            desde = 0;
+        }
+        int nuevos = 0;
+        List<LibroResumen> pagina;
+        do {
+            pagina = libroRepository.findPaginaLibros(desde, Limit.of(LOTE_CARGA));
+            for (LibroResumen libro : pagina) {
+                if (agregar(libro)) {
+                    nuevos++;
+                }
+            }
+            if (!pagina.isEmpty()) {
+                desde = pagina.get(pagina.size() - 1).id();
+            }
+        } while (pagina.size() == LOTE_CARGA);
+        return nuevos;
+    }
+
+    // false si el índice está deshabilitado o el libro ya estaba.
+    public boolean agregar(LibroResumen libro) {
+        if (!habilitado || libro.id() == null) {
+            return false;
+        }
+        candado.writeLock().lock();
+        try {
+            if (posicionPorId.containsKey(libro.id())) {
+                return false;
+            }
+            int posicion = documentos.size();
+            documentos.add(libro);
+            posicionPorId.put(libro.id(), posicion);
+            ultimoId = Math.max(ultimoId, libro.id());
+            modificado = true;
+            for (String token : tokens(libro.titulo() + " " + (libro.autor() != null ? libro.autor() : ""))) {
+                postings.computeIfAbsent(token, t -> new ListaEnteros()).agregar(posicion);
+            }
+            return true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // La actualización periódica cambia descargas en la base; sin esto la búsqueda seguiría ordenando por los valores
+    // que tenían los libros al indexarse.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alActualizarDescargas(ActualizacionDescargas.DescargasActualizadas actualizadas) {
+        if (!habilitado || actualizadas.ids().isEmpty()) {
+            return;
+        }
+        actualizar(libroRepository.findResumenByIds(actualizadas.ids()));
+    }
+
+    // Reemplaza el resumen de libros ya indexados; las descargas no cambian los tokens, así que las listas no se tocan.
+    public void actualizar(Collection<LibroResumen> libros) {
+        candado.writeLock().lock();
+        try {
+            for (LibroResumen libro : libros) {
+                Integer posicion = posicionPorId.get(libro.id());
+                if (posicion != null) {
+                    documentos.set(posicion, libro);
+                    modificado = true;
+                }
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Todos los términos deben aparecer (AND) y cada uno vale como prefijo; el orden es por descargas.
+    public List<LibroResumen> buscar(String texto, int limite) {
+        Set<String> terminos = tokens(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        candado.readLock().lock();
+        try {
+            int[] candidatos = null;
+            for (String termino : terminos) {
+                int[] coincidencias = unirPrefijo(termino);
+                candidatos = candidatos == null ? coincidencias : intersectar(candidatos, coincidencias);
+                if (candidatos.length == 0) {
+                    return List.of();
+                }
+            }
+            return mejoresPorDescargas(candidatos, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private int[] unirPrefijo(String prefijo) {
+        NavigableMap<String, ListaEnteros> rango = postings.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false);
+        if (rango.size() == 1) {
+            return rango.firstEntry().getValue().comoArreglo();
+        }
+        int total = 0;
+        for (ListaEnteros lista : rango.values()) {
+            total += lista.tamano;
+        }
+        int[] union = new int[total];
+        int n = 0;
+        for (ListaEnteros lista : rango.values()) {
+            System.arraycopy(lista.valores, 0, union, n, lista.tamano);
+            n += lista.tamano;
+        }
+        Arrays.sort(union);
+        int unicos = 0;
+        for (int i = 0; i < union.length; i++) {
+            if (i == 0 || union[i] != union[i - 1]) {
+                union[unicos++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, unicos);
+    }
+
+    private static int[] intersectar(int[] a, int[] b) {
+        int[] resultado = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                resultado[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    private List<LibroResumen> mejoresPorDescargas(int[] candidatos, int limite) {
+        return Arrays.stream(candidatos)
+                .mapToObj(documentos::get)
+                .sorted((x, y) -> Integer.compare(descargas(y), descargas(x)))
+                .limit(limite)
+                .toList();
+    }
+
+    private static int descargas(LibroResumen libro) {
+        return libro.descargas() != null ? libro.descargas() : 0;
+    }
+
+    private Set<String> tokens(String texto) {
+        Set<String> tokens = new LinkedHashSet<>();
+        String normalizado = normalizadorTexto.normalizar(texto);
+        if (normalizado == null) {
+            return tokens;
+        }
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean parteDeToken = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (parteDeToken && inicio < 0) {
+                inicio = i;
+            } else if (!parteDeToken && inicio >= 0) {
+                tokens.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @PreDestroy
+    public void guardarSnapshot() {
+        if (!habilitado) {
+            return;
+        }
+        candado.writeLock().lock();
+        try {
+            if (!modificado) {
+                return;
+            }
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                salida.writeInt(MAGICO);
+                salida.writeInt(VERSION);
+                salida.writeInt(documentos.size());
+                salida.writeLong(ultimoId);
+                for (LibroResumen libro : documentos) {
+                    salida.writeLong(libro.id());
+                    escribirTexto(salida, libro.titulo());
+                    escribirTexto(salida, libro.autor());
+                    escribirEntero(salida, libro.anoDeNacimiento());
+                    escribirEntero(salida, libro.anoDeMuerte());
+                    escribirTexto(salida, libro.idioma());
+                    escribirEntero(salida, libro.descargas());
+                }
+                salida.writeInt(postings.size());
+                for (Map.Entry<String, ListaEnteros> entrada : postings.entrySet()) {
+                    escribirTexto(salida, entrada.getKey());
+                    ListaEnteros lista = entrada.getValue();
+                    salida.writeInt(lista.tamano);
+                    for (int i = 0; i < lista.tamano; i++) {
+                        salida.writeInt(lista.valores[i]);
+                    }
+                }
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modificado = false;
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el índice invertido: " + e.getMessage());
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void cargarSnapshot() {
+        if (!Files.exists(archivo)) {
+            return;
+        }
+        candado.writeLock().lock();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.getInt() != MAGICO || buffer.getInt() != VERSION) {
+                logger.warn("Se ignora el índice guardado en " + archivo + ": formato desconocido");
+                return;
+            }
+            int cantidad = buffer.getInt();
+            long maximoId = buffer.getLong();
+            long enBase = libroRepository.countByIdLessThanEqual(maximoId);
+            if (enBase != cantidad) {
+                logger.info("El índice guardado tiene %d libros hasta el id %d y la base %d: se reconstruye"
+                        .formatted(cantidad, maximoId, enBase));
+                modificado = true;
+                return;
+            }
+            for (int i = 0; i < cantidad; i++) {
+                LibroResumen libro = new LibroResumen(buffer.getLong(), leerTexto(buffer), leerTexto(buffer),
+                        leerEntero(buffer), leerEntero(buffer), leerTexto(buffer), leerEntero(buffer));
+                posicionPorId.put(libro.id(), documentos.size());
+                documentos.add(libro);
+                ultimoId = Math.max(ultimoId, libro.id());
+            }
+            int tokens = buffer.getInt();
+            for (int i = 0; i < tokens; i++) {
+                String token = leerTexto(buffer);
+                int[] valores = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(valores);
+                buffer.position(buffer.position() + valores.length * Integer.BYTES);
+                postings.put(token, new ListaEnteros(valores));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo leer el índice guardado, se reconstruye desde la base: " + e.getMessage());
+            documentos.clear();
+            posicionPorId.clear();
+            postings.clear();
+            ultimoId = 0;
+            modificado = true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerTexto(ByteBuffer buffer) {
+        int largo = buffer.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirEntero(DataOutputStream salida, Integer valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        salida.writeInt(valor != null ? valor : 0);
+    }
+
+    private static Integer leerEntero(ByteBuffer buffer) {
+        boolean presente = buffer.get() != 0;
+        int valor = buffer.getInt();
+        return presente ? valor : null;
+    }
+
+    private static final class ListaEnteros {
+        private int[] valores;
+        private int tamano;
+
+        ListaEnteros() {
+            this.valores = new int[4];
+        }
+
+        ListaEnteros(int[] valores) {
+            this.valores = valores;
+            this.tamano = valores.length;
+        }
+
+        void agregar(int valor) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, Math.max(4, tamano * 2));
+            }
+            valores[tamano++] = valor;
+        }
+
+        int[] comoArreglo() {
+            return Arrays.copyOf(valores, tamano);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Lee pg_catalog.csv (el catálogo de Project Gutenberg) con el archivo mapeado en memoria por ventanas.
+// El análisis es byte a byte y guarda el estado entre ventanas, así un registro puede quedar partido entre
+// dos sin copiar nada; en memoria solo está el registro en curso. Los delimitadores del CSV son ASCII y
+// nunca aparecen dentro de un carácter UTF-8 de varios bytes, por eso se decodifica recién al cerrar cada campo.
+class LectorCatalogoCsv {
+    static final int VENTANA = 64 << 20;
+
+    // "Apellido, Nombre, 1564-1616", con fechas aproximadas (1900?) o antes de Cristo (65 BCE).
+    private static final Pattern FECHAS = Pattern.compile("^(\\d{1,4})?\\??( BCE)?-(\\d{1,4})?\\??( BCE)?$");
+    private static final Pattern SALTOS = Pattern.compile("\\s*[\\r\\n]+\\s*");
+
+    private final int ventana;
+
+    LectorCatalogoCsv() {
+        this(VENTANA);
+    }
+
+    LectorCatalogoCsv(int ventana) {
+        this.ventana = ventana;
+    }
+
+    // Entrega solo los registros de tipo Text con título; devuelve cuántos registros leyó en total.
+    long recorrer(Path archivo, Consumer<DatosLibros> consumidor) {
+        Analizador analizador = new Analizador(consumidor);
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            for (long posicion = 0; posicion < tamano; posicion += ventana) {
+                MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, posicion, Math.min(ventana, tamano - posicion));
+                while (buffer.hasRemaining()) {
+                    analizador.leer(buffer.get());
+                }
+            }
+            analizador.terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return analizador.registros;
+    }
+
+    private static final class Analizador {
+        private final Consumer<DatosLibros> consumidor;
+        private final List<String> campos = new ArrayList<>();
+        private byte[] campo = new byte[256];
+        private int largo;
+        private boolean enComillas;
+        private boolean comillaCerrada;
+        private int[] columnas;
+        private long registros;
+
+        Analizador(Consumer<DatosLibros> consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        // Comillas dobles a la manera de RFC 4180: "" dentro de un campo entre comillas es una comilla literal.
+        void leer(byte b) {
+            if (enComillas) {
+                if (b == '"') {
+                    enComillas = false;
+                    comillaCerrada = true;
+                } else {
+                    agregar(b);
+                }
+                return;
+            }
+            if (comillaCerrada && b == '"') {
+                agregar(b);
+                enComillas = true;
+                comillaCerrada = false;
+                return;
+            }
+            comillaCerrada = false;
+            switch (b) {
+                case '"' -> enComillas = true;
+                case ',' -> cerrarCampo();
+                case '\n' -> cerrarRegistro();
+                case '\r' -> { }
+                default -> agregar(b);
+            }
+        }
+
+        void terminar() {
+            cerrarRegistro();
+        }
+
+        private void agregar(byte b) {
+            if (largo == campo.length) {
+                campo = Arrays.copyOf(campo, largo * 2);
+            }
+            campo[largo++] = b;
+        }
+
+        private void cerrarCampo() {
+            campos.add(new String(campo, 0, largo, StandardCharsets.UTF_8));
+            largo = 0;
+        }
+
+        private void cerrarRegistro() {
+            if (campos.isEmpty() && largo == 0) {
+                return;
+            }
+            cerrarCampo();
+            if (columnas == null) {
+                columnas = columnas(campos);
+            } else {
+                registros++;
+                DatosLibros libro = aDatosLibros(campos, columnas);
+                if (libro != null) {
+                    consumidor.accept(libro);
+                }
+            }
+            campos.clear();
+        }
+    }
+
+    // Posiciones de Type, Title, Language, Authors y Text# (el número de Gutenberg) según el encabezado.
+    private static int[] columnas(List<String> encabezado) {
+        List<String> nombres = encabezado.stream().map(nombre -> nombre.replace("\uFEFF", "").trim()).toList();
+        String[] buscadas = {"Type", "Title", "Language", "Authors", "Text#"};
+        int[] columnas = new int[buscadas.length];
+        for (int i = 0; i < buscadas.length; i++) {
+            columnas[i] = nombres.indexOf(buscadas[i]);
+            if (columnas[i] < 0) {
+                throw new ConversionDatosException("El catálogo no tiene la columna " + buscadas[i] + "; ¿es pg_catalog.csv?");
+            }
+        }
+        return columnas;
+    }
+
+    private static DatosLibros aDatosLibros(List<String> campos, int[] columnas) {
+        if (campos.size() <= Arrays.stream(columnas).max().orElse(0) || !campos.get(columnas[0]).equals("Text")) {
+            return null;
+        }
+        String titulo = SALTOS.matcher(campos.get(columnas[1]).trim()).replaceAll(" ");
+        if (titulo.isEmpty()) {
+            return null;
+        }
+        List<String> idiomas = Arrays.stream(campos.get(columnas[2]).split(";"))
+                .map(String::trim)
+                .filter(codigo -> !codigo.isEmpty())
+                .toList();
+        List<DatosAutor> autores = new ArrayList<>();
+        for (String autor : campos.get(columnas[3]).split(";")) {
+            DatosAutor datosAutor = aDatosAutor(autor.trim());
+            if (datosAutor != null) {
+                autores.add(datosAutor);
+            }
+        }
+        String numero = campos.get(columnas[4]).trim();
+        return new DatosLibros(titulo, autores, idiomas, null, numero.matches("\\d{1,18}") ? Long.valueOf(numero) : null);
+    }
+
+    // Ilustradores, editores y demás llevan el rol entre corchetes; Gutendex tampoco los cuenta como autores.
+    private static DatosAutor aDatosAutor(String autor) {
+        if (autor.isEmpty() || autor.endsWith("]")) {
+            return null;
+        }
+        int coma = autor.lastIndexOf(',');
+        if (coma > 0) {
+            Matcher fechas = FECHAS.matcher(autor.substring(coma + 1).trim());
+            if (fechas.matches()) {
+                return new DatosAutor(autor.substring(0, coma).trim(),
+                        ano(fechas.group(1), fechas.group(2)), ano(fechas.group(3), fechas.group(4)));
+            }
+        }
+        return new DatosAutor(autor, null, null);
+    }
+
+    private static Integer ano(String ano, String antesDeCristo) {
+        if (ano == null) {
+            return null;
+        }
+        return antesDeCristo != null ? -Integer.parseInt(ano) : Integer.parseInt(ano);
+    }
+}
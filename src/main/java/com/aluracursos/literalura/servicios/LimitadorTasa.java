@@ -0,0 +1,30 @@
+package com.aluracursos.literalura.servicios;
+
+// Cubeta de fichas compartida por todas las llamadas a la API: permite "rafaga" seguidas y después una cada
+// 1/porSegundo segundos. Quien pide reserva su ficha aunque todavía no exista y recibe cuánto debe esperar,
+// así los que llegan después quedan detrás y nadie compite por la misma ficha.
+class LimitadorTasa {
+    private final double fichasPorNano;
+    private final double capacidad;
+    private double fichas;
+    private long ultimaRecarga = System.nanoTime();
+
+    // porSegundo <= 0 desactiva el límite.
+    LimitadorTasa(double porSegundo, int rafaga) {
+        this.fichasPorNano = porSegundo / 1_000_000_000.0;
+        this.capacidad = Math.max(1, rafaga);
+        this.fichas = capacidad;
+    }
+
+    // Nanosegundos que hay que esperar antes de enviar; 0 si hay ficha disponible.
+    synchronized long reservar() {
+        if (fichasPorNano <= 0) {
+            return 0;
+        }
+        long ahora = System.nanoTime();
+        fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+        ultimaRecarga = ahora;
+        fichas -= 1;
+        return fichas >= 0 ? 0 : (long) Math.ceil(-fichas / fichasPorNano);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aluracursos.literalura.servicios;
+
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Pasa las columnas libro.autor_id y libro.idioma de las bases anteriores a las tablas de unión y las elimina.
+// ddl-auto=update nunca borra columnas, así que sin esto quedarían huérfanas.
+@Component
+@Order(0)
+public class MigracionRelaciones implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(MigracionRelaciones.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MigracionRelaciones(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (existeColumna("autor_id")) {
+            int filas = jdbcTemplate.update("""
+                    INSERT INTO libro_autor (libro_id, autor_id, posicion)
+                    SELECT id, autor_id, 0 FROM libro WHERE autor_id IS NOT NULL
+                    ON CONFLICT DO NOTHING
+                    """);
+            jdbcTemplate.execute("ALTER TABLE libro DROP COLUMN autor_id");
+            logger.info("Autores migrados a libro_autor: " + filas);
+        }
+        if (existeColumna("idioma")) {
+            jdbcTemplate.update("""
+                    INSERT INTO idioma (codigo)
+                    SELECT DISTINCT lower(idioma) FROM libro WHERE idioma IS NOT NULL AND idioma <> 'Desconocido'
+                    ON CONFLICT DO NOTHING
+                    """);
+            int filas = jdbcTemplate.update("""
+                    INSERT INTO libro_idioma (libro_id, idioma_id)
+                    SELECT l.id, i.id FROM libro l JOIN idioma i ON i.codigo = lower(l.idioma)
+                    ON CONFLICT DO NOTHING
+                    """);
+            jdbcTemplate.execute("ALTER TABLE libro DROP COLUMN idioma");
+            logger.info("Idiomas migrados a libro_idioma: " + filas);
+        }
+    }
+
+    private boolean existeColumna(String columna) {
+        Integer cantidad = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = 'libro' AND column_name = ?
+                """, Integer.class, columna);
+        return cantidad != null && cantidad > 0;
+    }
+}
@@ -0,0 +1,121 @@
+package com.aluracursos.literalura.servicios;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class NormalizadorTexto {
+    public static final int LONGITUD_TITULO = 500;
+    public static final int LONGITUD_NOMBRE = 255;
+    // La tabla cubre todo el plano básico, así un título en NFC y el mismo en NFD dan la misma clave también fuera del
+    // latín (vietnamita, griego con tonos, cirílico). Fuera del plano básico se descompone carácter por carácter.
+    private static final int LIMITE_TABLA = 0x10000;
+    // Valor de la tabla para las marcas combinantes, que se descartan.
+    private static final char DESCARTAR = 0;
+    // Letras con trazo que Unicode no descompone en base más tilde; se pliegan a mano a la letra de la misma posición.
+    static final String CON_TRAZO = "łøđħŧƀƶǥ";
+    private static final String SIN_TRAZO = "lodhtbzg";
+    private static final char[] TABLA = construirTabla();
+
+    private final Timer tiempo;
+
+    public NormalizadorTexto() {
+        this(Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public NormalizadorTexto(MeterRegistry registro) {
+        this.tiempo = Timer.builder("literalura.normalizacion")
+                .description("Tiempo de normalización de títulos, nombres y búsquedas")
+                .register(registro);
+    }
+
+    public String normalizar(String texto) {
+        return normalizar(texto, Integer.MAX_VALUE);
+    }
+
+    public String normalizar(String texto, int longitudMaxima) {
+        if (texto == null) return null;
+
+        long inicio = System.nanoTime();
+        String normalizado = plegar(texto, longitudMaxima);
+        tiempo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return normalizado;
+    }
+
+    // Una sola pasada: minúsculas, sin diacríticos, espacios colapsados y recorte a longitudMaxima.
+    private String plegar(String texto, int longitudMaxima) {
+
+        int largo = texto.length();
+        char[] salida = new char[Math.min(largo, longitudMaxima)];
+        int n = 0;
+        boolean espacioPendiente = false;
+
+        for (int i = 0; i < largo && n < salida.length; ) {
+            int codigo = texto.codePointAt(i);
+            i += Character.charCount(codigo);
+
+            if (Character.isWhitespace(codigo) || Character.isSpaceChar(codigo)) {
+                espacioPendiente = n > 0;
+                continue;
+            }
+
+            int plegado;
+            if (codigo < LIMITE_TABLA) {
+                plegado = TABLA[codigo];
+                if (plegado == DESCARTAR) continue;
+            } else {
+                if (esMarca(codigo)) continue;
+                plegado = plegarCodigo(codigo);
+            }
+
+            int necesarios = Character.charCount(plegado) + (espacioPendiente ? 1 : 0);
+            if (n + necesarios > salida.length) break;
+            if (espacioPendiente) {
+                salida[n++] = ' ';
+                espacioPendiente = false;
+            }
+            n += Character.toChars(plegado, salida, n);
+        }
+
+        return new String(salida, 0, n);
+    }
+
+    // Para el plano básico la tabla guarda cada carácter ya plegado, sin tilde y sin trazo, y DESCARTAR para las marcas.
+    private static char[] construirTabla() {
+        char[] tabla = new char[LIMITE_TABLA];
+        for (int c = 1; c < LIMITE_TABLA; c++) {
+            if (Character.isSurrogate((char) c)) {
+                tabla[c] = (char) c;
+            } else if (!esMarca(c)) {
+                int plegado = plegarCodigo(c);
+                tabla[c] = plegado < LIMITE_TABLA ? (char) plegado : (char) c;
+            }
+        }
+        return tabla;
+    }
+
+    private static int plegarCodigo(int codigo) {
+        int plegado = Character.toLowerCase(Character.toUpperCase(codigo));
+        String descompuesto = Normalizer.normalize(Character.toString(plegado), Normalizer.Form.NFD);
+        int base = soloTildesTrasLaBase(descompuesto) ? descompuesto.codePointAt(0) : plegado;
+        int trazo = CON_TRAZO.indexOf(base);
+        return trazo >= 0 ? SIN_TRAZO.charAt(trazo) : base;
+    }
+
+    private static boolean esMarca(int codigo) {
+        int tipo = Character.getType(codigo);
+        return tipo == Character.NON_SPACING_MARK || tipo == Character.ENCLOSING_MARK;
+    }
+
+    private static boolean soloTildesTrasLaBase(String descompuesto) {
+        int despuesDeLaBase = Character.charCount(descompuesto.codePointAt(0));
+        if (descompuesto.length() <= despuesDeLaBase) return false;
+        return descompuesto.codePoints().skip(1).allMatch(NormalizadorTexto::esMarca);
+    }
+}
@@ -0,0 +1,136 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class PersistenciaLotes implements IPersistenciaLotes {
+    // Los libros guardados antes de tener gutendex_id lo reciben la próxima vez que llegan en un lote.
+    private static final String COMPLETAR_GUTENDEX_ID = """
+            UPDATE libro SET gutendex_id = ?
+            WHERE titulo_normalizado = ? AND gutendex_id IS NULL
+              AND NOT EXISTS (SELECT 1 FROM libro otro WHERE otro.gutendex_id = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AltaCatalogo altaCatalogo;
+    private final NormalizadorTexto normalizadorTexto;
+    private final FiltroExistencia filtroExistencia;
+    private final ApplicationEventPublisher eventos;
+
+    public PersistenciaLotes(JdbcTemplate jdbcTemplate, AltaCatalogo altaCatalogo, NormalizadorTexto normalizadorTexto,
+                             FiltroExistencia filtroExistencia, ApplicationEventPublisher eventos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.altaCatalogo = altaCatalogo;
+        this.normalizadorTexto = normalizadorTexto;
+        this.filtroExistencia = filtroExistencia;
+        this.eventos = eventos;
+    }
+
+    @Override
+    @Transactional
+    public int guardarLote(List<DatosLibros> libros) {
+        if (libros == null || libros.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, DatosAutor> autores = new LinkedHashMap<>();
+        Map<String, DatosLibros> librosPorClave = new LinkedHashMap<>();
+        Set<String> idiomas = new LinkedHashSet<>();
+        List<Relacion> librosAutores = new ArrayList<>();
+        List<Relacion> librosIdiomas = new ArrayList<>();
+        for (DatosLibros libro : libros) {
+            if (libro.titulo() == null || libro.titulo().isBlank()) {
+                continue;
+            }
+            String clave = normalizadorTexto.normalizar(libro.titulo(), NormalizadorTexto.LONGITUD_TITULO);
+            if (librosPorClave.putIfAbsent(clave, libro) != null) {
+                continue;
+            }
+            Set<String> autoresDelLibro = new LinkedHashSet<>();
+            for (DatosAutor autor : libro.autor() != null ? libro.autor() : List.<DatosAutor>of()) {
+                if (autor.nombre() != null) {
+                    String nombre = nombreNormalizado(autor);
+                    autores.putIfAbsent(nombre, autor);
+                    if (autoresDelLibro.add(nombre)) {
+                        librosAutores.add(new Relacion(clave, nombre, autoresDelLibro.size() - 1));
+                    }
+                }
+            }
+            Set<String> idiomasDelLibro = new LinkedHashSet<>();
+            for (String codigo : libro.idioma() != null ? libro.idioma() : List.<String>of()) {
+                if (codigo != null && !codigo.isBlank() && idiomasDelLibro.add(codigo.trim().toLowerCase())) {
+                    librosIdiomas.add(new Relacion(clave, codigo.trim().toLowerCase(), idiomasDelLibro.size() - 1));
+                }
+            }
+            idiomas.addAll(idiomasDelLibro);
+        }
+
+        // Una sentencia por tabla para todo el lote; los ids de autores e idiomas salen del RETURNING o de la
+        // lectura que le sigue, sin volver a buscar cada fila por su clave al armar las relaciones.
+        AltaCatalogo.Altas idsAutores = altaCatalogo.autores(autores);
+        AltaCatalogo.Altas idsIdiomas = altaCatalogo.idiomas(idiomas);
+        AltaCatalogo.Altas idsLibros = altaCatalogo.libros(librosPorClave);
+
+        // En orden de clave, como las altas: dos lotes que completan los mismos libros bloquean las filas en el mismo orden.
+        List<Map.Entry<String, DatosLibros>> conGutendexId = librosPorClave.entrySet().stream()
+                .filter(entrada -> entrada.getValue().gutendexId() != null && !idsLibros.nuevas().contains(entrada.getKey()))
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        jdbcTemplate.batchUpdate(COMPLETAR_GUTENDEX_ID, conGutendexId, conGutendexId.size(), (ps, entrada) -> {
+            ps.setLong(1, entrada.getValue().gutendexId());
+            ps.setString(2, entrada.getKey());
+            ps.setLong(3, entrada.getValue().gutendexId());
+        });
+
+        List<AltaCatalogo.LibroAutor> conAutores = new ArrayList<>(librosAutores.size());
+        for (Relacion relacion : librosAutores) {
+            Long libro = idsLibros.ids().get(relacion.libro());
+            Long autor = idsAutores.ids().get(relacion.otro());
+            if (libro != null && autor != null) {
+                conAutores.add(new AltaCatalogo.LibroAutor(libro, autor, relacion.posicion()));
+            }
+        }
+        altaCatalogo.relacionarAutores(conAutores);
+
+        List<AltaCatalogo.LibroIdioma> conIdiomas = new ArrayList<>(librosIdiomas.size());
+        for (Relacion relacion : librosIdiomas) {
+            Long libro = idsLibros.ids().get(relacion.libro());
+            Long idioma = idsIdiomas.ids().get(relacion.otro());
+            if (libro != null && idioma != null) {
+                conIdiomas.add(new AltaCatalogo.LibroIdioma(libro, idioma));
+            }
+        }
+        altaCatalogo.relacionarIdiomas(conIdiomas);
+
+        autores.keySet().forEach(filtroExistencia::registrarAutor);
+        librosPorClave.keySet().forEach(filtroExistencia::registrarLibro);
+
+        int insertados = idsLibros.nuevas().size();
+        eventos.publishEvent(new LoteGuardado(insertados));
+        return insertados;
+    }
+
+    private String nombreNormalizado(DatosAutor autor) {
+        return normalizadorTexto.normalizar(autor.nombre(), NormalizadorTexto.LONGITUD_NOMBRE);
+    }
+
+    // Se publica dentro de la transacción; los oyentes transaccionales lo reciben tras el commit.
+    public record LoteGuardado(int insertados) {
+    }
+
+    // Fila de una tabla de unión identificada por claves naturales; otro es el autor o el idioma. Se traduce a ids
+    // con lo que devuelve AltaCatalogo.
+    private record Relacion(String libro, String otro, int posicion) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Mantiene en memoria los libros más descargados, en total y por idioma, con un montículo mínimo acotado por clave.
+// Las consultas leen una lista ya ordenada, así que responder un top N no depende del tamaño del catálogo.
+@Service
+@Order(4)
+public class RankingDescargas implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RankingDescargas.class);
+    private static final String TODOS = "*";
+    private static final Comparator<LibroResumen> POR_DESCARGAS = Comparator
+            .comparingInt((LibroResumen libro) -> libro.descargas() != null ? libro.descargas() : 0)
+            .thenComparing(LibroResumen::id, Comparator.reverseOrder());
+
+    private final LibroRepository libroRepository;
+    private final int capacidad;
+    private volatile Map<String, Clasificacion> clasificaciones = new ConcurrentHashMap<>();
+
+    public RankingDescargas(LibroRepository libroRepository,
+                            @Value("${literalura.ranking.capacidad:100}") int capacidad) {
+        this.libroRepository = libroRepository;
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recargar();
+    }
+
+    public void recargar() {
+        Map<String, Clasificacion> nuevas = new ConcurrentHashMap<>();
+        PageRequest primeros = PageRequest.of(0, capacidad);
+        libroRepository.findTopPorDescargas(primeros).forEach(libro -> clasificacion(nuevas, TODOS).registrar(libro));
+        for (String idioma : libroRepository.findIdiomas()) {
+            libroRepository.findTopPorIdiomas(List.of(idioma), primeros).forEach(libro -> clasificacion(nuevas, idioma).registrar(libro));
+        }
+        clasificaciones = nuevas;
+        logger.info("Ranking de descargas cargado para " + Math.max(nuevas.size() - 1, 0) + " idiomas");
+    }
+
+    public void registrar(LibroResumen libro) {
+        clasificacion(clasificaciones, TODOS).registrar(libro);
+        for (String idioma : libro.codigosIdioma()) {
+            clasificacion(clasificaciones, idioma).registrar(libro);
+        }
+    }
+
+    // Vacío si n supera la capacidad mantenida o si no hay nada registrado para esa clave; en ese caso hay que ir a la base.
+    public Optional<List<LibroResumen>> top(int n) {
+        return topDe(TODOS, n);
+    }
+
+    public Optional<List<LibroResumen>> topPorIdioma(String idioma, int n) {
+        return topDe(idioma, n);
+    }
+
+    private Optional<List<LibroResumen>> topDe(String clave, int n) {
+        if (n > capacidad) {
+            return Optional.empty();
+        }
+        // La base puede tener libros en un idioma que el ranking todavía no vio.
+        Clasificacion clasificacion = clasificaciones.get(clave);
+        if (clasificacion == null) {
+            return Optional.empty();
+        }
+        List<LibroResumen> ordenados = clasificacion.ordenados();
+        return Optional.of(ordenados.subList(0, Math.min(n, ordenados.size())));
+    }
+
+    private Clasificacion clasificacion(Map<String, Clasificacion> destino, String clave) {
+        return destino.computeIfAbsent(clave, c -> new Clasificacion(capacidad));
+    }
+
+    private static final class Clasificacion {
+        private final int capacidad;
+        private final PriorityQueue<LibroResumen> monticulo;
+        private volatile List<LibroResumen> ordenados = List.of();
+
+        Clasificacion(int capacidad) {
+            this.capacidad = capacidad;
+            this.monticulo = new PriorityQueue<>(capacidad + 1, POR_DESCARGAS);
+        }
+
+        synchronized void registrar(LibroResumen libro) {
+            boolean cambio = monticulo.removeIf(actual -> actual.id().equals(libro.id()));
+            if (monticulo.size() < capacidad) {
+                monticulo.add(libro);
+                cambio = true;
+            } else if (POR_DESCARGAS.compare(libro, monticulo.peek()) > 0) {
+                monticulo.poll();
+                monticulo.add(libro);
+                cambio = true;
+            }
+            if (!cambio) {
+                return;
+            }
+            List<LibroResumen> copia = new ArrayList<>(monticulo);
+            copia.sort(POR_DESCARGAS.reversed());
+            ordenados = List.copyOf(copia);
+        }
+
+        List<LibroResumen> ordenados() {
+            return ordenados;
+        }
+    }
+}
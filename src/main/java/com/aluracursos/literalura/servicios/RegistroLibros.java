@@ -0,0 +1,123 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.*;
+import com.aluracursos.literalura.repository.LibroRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.*;
+
+// Deduplica y guarda un libro de la API con sus autores e idiomas. Antes vivía dentro de Principal;
+// separado, el menú y los benchmarks recorren exactamente el mismo camino.
+// Las altas van por AltaCatalogo (INSERT ... ON CONFLICT): dos búsquedas simultáneas del mismo libro o de libros del
+// mismo autor ya no chocan con las restricciones únicas, la segunda encuentra lo que guardó la primera.
+@Service
+public class RegistroLibros {
+    private final LibroRepository libroRepository;
+    private final AltaCatalogo altaCatalogo;
+    private final NormalizadorTexto normalizadorTexto;
+    private final FiltroExistencia filtroExistencia;
+    private final IndiceInvertido indiceInvertido;
+    private final RankingDescargas rankingDescargas;
+    private final ApplicationEventPublisher eventos;
+
+    public RegistroLibros(LibroRepository libroRepository, AltaCatalogo altaCatalogo, NormalizadorTexto normalizadorTexto, FiltroExistencia filtroExistencia, IndiceInvertido indiceInvertido, RankingDescargas rankingDescargas, ApplicationEventPublisher eventos) {
+        this.libroRepository = libroRepository;
+        this.altaCatalogo = altaCatalogo;
+        this.normalizadorTexto = normalizadorTexto;
+        this.filtroExistencia = filtroExistencia;
+        this.indiceInvertido = indiceInvertido;
+        this.rankingDescargas = rankingDescargas;
+        this.eventos = eventos;
+    }
+
+    @Transactional
+    public Registro guardarSiNoExiste(DatosLibros datosLibro) {
+        String tituloNormalizado = normalizadorTexto.normalizar(datosLibro.titulo(), NormalizadorTexto.LONGITUD_TITULO);
+
+        if (filtroExistencia.puedeExistirLibro(tituloNormalizado)) {
+            Optional<Libro> libroExistente = libroRepository.findByTituloNormalizado(tituloNormalizado);
+            if (libroExistente.isPresent()) {
+                Libro libro = libroExistente.get();
+                if (libro.getGutendexId() == null && datosLibro.gutendexId() != null
+                        && libroRepository.findByGutendexId(datosLibro.gutendexId()).isEmpty()) {
+                    libro.setGutendexId(datosLibro.gutendexId());
+                    libroRepository.save(libro);
+                }
+                // Con autores e idiomas cargados: quien llama arma el resumen fuera de esta transacción.
+                return new Registro(libroRepository.findConRelacionesById(libro.getId()).orElse(libro), false);
+            }
+        }
+
+        Map<String, DatosAutor> autores = new LinkedHashMap<>();
+        if (datosLibro.autor() != null) {
+            for (DatosAutor datosAutor : datosLibro.autor()) {
+                if (datosAutor.nombre() != null) {
+                    autores.putIfAbsent(normalizadorTexto.normalizar(datosAutor.nombre(), NormalizadorTexto.LONGITUD_NOMBRE), datosAutor);
+                }
+            }
+        }
+        List<String> idiomas = obtenerIdiomas(datosLibro);
+
+        AltaCatalogo.Altas idsAutores = altaCatalogo.autores(autores);
+        AltaCatalogo.Altas idsIdiomas = altaCatalogo.idiomas(idiomas);
+        AltaCatalogo.Altas idsLibro = altaCatalogo.libros(Map.of(tituloNormalizado, datosLibro));
+        Long id = idsLibro.ids().get(tituloNormalizado);
+        if (id == null) {
+            throw new IllegalStateException("No se pudo registrar el libro '" + datosLibro.titulo() + "'");
+        }
+        boolean nuevo = idsLibro.nuevas().contains(tituloNormalizado);
+
+        if (nuevo) {
+            List<AltaCatalogo.LibroAutor> conAutores = new ArrayList<>();
+            for (String clave : autores.keySet()) {
+                Long autor = idsAutores.ids().get(clave);
+                if (autor != null) {
+                    conAutores.add(new AltaCatalogo.LibroAutor(id, autor, conAutores.size()));
+                }
+            }
+            altaCatalogo.relacionarAutores(conAutores);
+            altaCatalogo.relacionarIdiomas(idiomas.stream()
+                    .map(idsIdiomas.ids()::get)
+                    .filter(Objects::nonNull)
+                    .map(idioma -> new AltaCatalogo.LibroIdioma(id, idioma))
+                    .toList());
+        }
+        autores.keySet().forEach(filtroExistencia::registrarAutor);
+        filtroExistencia.registrarLibro(tituloNormalizado);
+
+        Libro libro = libroRepository.findConRelacionesById(id).orElseThrow();
+        if (nuevo) {
+            // Las altas no pasan por Hibernate, que entonces no sabe que sus consultas en caché quedaron viejas.
+            eventos.publishEvent(new LibroRegistrado(LibroResumen.de(libro)));
+        }
+        return new Registro(libro, nuevo);
+    }
+
+    // Tras el commit: si la transacción se deshace, el índice y el ranking no quedan con un libro que no existe.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void alConfirmarRegistro(LibroRegistrado registrado) {
+        indiceInvertido.agregar(registrado.libro());
+        rankingDescargas.registrar(registrado.libro());
+    }
+
+    private List<String> obtenerIdiomas(DatosLibros datosLibro) {
+        if (datosLibro.idioma() == null) {
+            return List.of();
+        }
+        return datosLibro.idioma().stream()
+                .filter(codigo -> codigo != null && !codigo.isBlank())
+                .map(codigo -> codigo.trim().toLowerCase())
+                .distinct()
+                .toList();
+    }
+
+    public record Registro(Libro libro, boolean nuevo) {
+    }
+
+    // Se publica dentro de la transacción; los oyentes transaccionales lo reciben tras el commit.
+    public record LibroRegistrado(LibroResumen libro) {
+    }
+}
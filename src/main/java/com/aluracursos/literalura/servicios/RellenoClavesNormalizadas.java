@@ -0,0 +1,156 @@
+package com.aluracursos.literalura.servicios;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Completa las claves normalizadas de las filas guardadas antes de que existieran esas columnas, y rehace las que
+// todavía tienen letras con trazo o con tildes fuera del latín (vietnamita, griego, cirílico) de antes de que el
+// normalizador las plegara: esas claves, descompuestas, conservan alguna marca combinante. Va por páginas de
+// ids: una lectura, una consulta por las claves ya usadas y un UPDATE para toda la página, en su propia transacción.
+// Si la clave ya la tiene otra fila, la fila recibe "clave#id": sigue siendo única y la próxima vez que arranque ya no
+// queda pendiente.
+@Component
+@Order(1)
+public class RellenoClavesNormalizadas implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RellenoClavesNormalizadas.class);
+    private static final int TAMANO_PAGINA = 500;
+
+    private static final Tabla AUTORES = new Tabla("autor", "nombre", "nombre_normalizado", NormalizadorTexto.LONGITUD_NOMBRE);
+    private static final Tabla LIBROS = new Tabla("libro", "titulo", "titulo_normalizado", NormalizadorTexto.LONGITUD_TITULO);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NormalizadorTexto normalizadorTexto;
+    private final CacheConsultas cacheConsultas;
+    private final TransactionTemplate transaccion;
+
+    public RellenoClavesNormalizadas(JdbcTemplate jdbcTemplate, NormalizadorTexto normalizadorTexto,
+                                     CacheConsultas cacheConsultas, PlatformTransactionManager transacciones) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.normalizadorTexto = normalizadorTexto;
+        this.cacheConsultas = cacheConsultas;
+        this.transaccion = new TransactionTemplate(transacciones);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int autores = rellenar(AUTORES);
+        int libros = rellenar(LIBROS);
+        if (autores > 0 || libros > 0) {
+            cacheConsultas.invalidar();
+            logger.info("Claves normalizadas completadas: " + autores + " autores, " + libros + " libros");
+        }
+    }
+
+    // Cada página se confirma por separado: una tabla grande no queda bloqueada en una sola transacción y, si el
+    // arranque se corta, lo ya completado no se vuelve a hacer.
+    private int rellenar(Tabla tabla) {
+        int completadas = 0;
+        long ultimoId = 0;
+        while (true) {
+            long desde = ultimoId;
+            Pagina pagina = transaccion.execute(estado -> rellenarPagina(tabla, desde));
+            if (pagina == null) {
+                return completadas;
+            }
+            ultimoId = pagina.ultimoId();
+            completadas += pagina.completadas();
+        }
+    }
+
+    // Las filas sin texto no tienen clave que calcular y quedan fuera de la lectura.
+    private Pagina rellenarPagina(Tabla tabla, long desde) {
+        String leer = "SELECT id, " + tabla.texto() + ", " + tabla.clave() + " FROM " + tabla.nombre()
+                + " WHERE (" + tabla.clave() + " IS NULL OR " + tabla.clave() + " ~ '[" + NormalizadorTexto.CON_TRAZO + "]'"
+                + " OR normalize(" + tabla.clave() + ", NFD) ~ '[\\u0300-\\u036f]')"
+                + " AND " + tabla.texto() + " IS NOT NULL AND id > ? ORDER BY id LIMIT " + TAMANO_PAGINA;
+        String usadas = "SELECT " + tabla.clave() + " FROM " + tabla.nombre() + " WHERE " + tabla.clave() + " = ANY(?)";
+        String actualizar = "UPDATE " + tabla.nombre() + " t SET " + tabla.clave() + " = n.clave"
+                + " FROM unnest(?::bigint[], ?::varchar[]) AS n(id, clave) WHERE t.id = n.id";
+
+        Map<Long, String> textos = new LinkedHashMap<>();
+        Map<Long, String> actuales = new HashMap<>();
+        jdbcTemplate.query(leer, fila -> {
+            textos.put(fila.getLong(1), fila.getString(2));
+            actuales.put(fila.getLong(1), fila.getString(3));
+        }, desde);
+        if (textos.isEmpty()) {
+            return null;
+        }
+        long ultimoId = textos.keySet().stream().reduce((primero, ultimo) -> ultimo).orElseThrow();
+
+        // Por cada fila, su clave y la alternativa con el id, por si la primera ya está tomada.
+        Map<Long, String> claves = new LinkedHashMap<>();
+        Map<Long, String> alternativas = new LinkedHashMap<>();
+        textos.forEach((id, texto) -> {
+            String clave = normalizadorTexto.normalizar(texto, tabla.longitud());
+            if (clave.equals(actuales.get(id))) {
+                return;
+            }
+            claves.put(id, clave);
+            alternativas.put(id, conId(clave, id, tabla.longitud()));
+        });
+        List<String> candidatas = new ArrayList<>(claves.values());
+        candidatas.addAll(alternativas.values());
+        Set<String> tomadas = new HashSet<>(jdbcTemplate.query(usadas,
+                ps -> ps.setArray(1, arreglo(ps, "varchar", candidatas.toArray(String[]::new))),
+                (fila, numero) -> fila.getString(1)));
+
+        // En orden de id: ante dos filas pendientes con la misma clave, la de menor id se queda con ella.
+        List<Long> ids = new ArrayList<>();
+        List<String> nuevas = new ArrayList<>();
+        for (Map.Entry<Long, String> entrada : claves.entrySet()) {
+            Long id = entrada.getKey();
+            String clave = entrada.getValue();
+            if (!tomadas.add(clave)) {
+                logger.warn("El registro " + id + " de " + tabla.nombre() + " duplica la clave normalizada '"
+                        + clave + "'; se guarda como '" + alternativas.get(id) + "'");
+                clave = alternativas.get(id);
+                if (!tomadas.add(clave)) {
+                    logger.warn("El registro " + id + " de " + tabla.nombre() + " no tiene una clave normalizada libre");
+                    continue;
+                }
+            }
+            ids.add(id);
+            nuevas.add(clave);
+        }
+        jdbcTemplate.update(actualizar, ps -> {
+            ps.setArray(1, arreglo(ps, "int8", ids.toArray(Long[]::new)));
+            ps.setArray(2, arreglo(ps, "varchar", nuevas.toArray(String[]::new)));
+        });
+        return new Pagina(ultimoId, ids.size());
+    }
+
+    // Recorta la clave lo necesario para que el sufijo entre en la columna.
+    static String conId(String clave, long id, int longitudMaxima) {
+        String sufijo = "#" + id;
+        int largo = Math.min(clave.length(), longitudMaxima - sufijo.length());
+        return clave.substring(0, largo) + sufijo;
+    }
+
+    private static Array arreglo(PreparedStatement ps, String tipo, Object[] valores) throws SQLException {
+        return ps.getConnection().createArrayOf(tipo, valores);
+    }
+
+    private record Tabla(String nombre, String texto, String clave, int longitud) {
+    }
+
+    private record Pagina(long ultimoId, int completadas) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.aluracursos.literalura.servicios;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Etapas unidas por colas acotadas, cada una con su propia cantidad de hilos. Si una etapa no da abasto, la anterior
+// se bloquea al encolar, así lo que está en vuelo nunca supera la suma de las capacidades de las colas más lo que
+// cada hilo tiene entre manos. Un error en cualquier etapa detiene a todas y esperar() lo relanza.
+// Se arma de atrás hacia adelante: cada etapa recibe la cola de la siguiente y devuelve la propia.
+final class Tuberia {
+    private static final Object FIN = new Object();
+    private static final long ESPERA_MS = 50;
+
+    private final Metricas metricas;
+    private final int capacidad;
+    private final List<Thread> hilos = new ArrayList<>();
+    private final AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+    Tuberia(Metricas metricas, int capacidad) {
+        this.metricas = metricas;
+        this.capacidad = capacidad;
+    }
+
+    // Cada hilo recibe su propio Paso, así un paso puede acumular estado (un lote) sin sincronizarse.
+    <E, S> Cola<E> etapa(String nombre, int cantidadHilos, Supplier<Paso<E, S>> pasos, Cola<S> salida) {
+        Cola<E> entrada = new Cola<>(new ArrayBlockingQueue<>(capacidad));
+        metricas.profundidad(nombre).set(entrada.elementos);
+        Timer tiempo = metricas.tiempo(nombre);
+        AtomicInteger activos = new AtomicInteger(cantidadHilos);
+        for (int i = 1; i <= cantidadHilos; i++) {
+            Paso<E, S> paso = pasos.get();
+            Thread hilo = new Thread(() -> trabajar(entrada, paso, salida, tiempo, activos),
+                    metricas.tuberia + "-" + nombre + "-" + i);
+            hilo.setDaemon(true);
+            hilos.add(hilo);
+            hilo.start();
+        }
+        return entrada;
+    }
+
+    // Para quien alimenta la primera cola: si falla al producir, las etapas no quedan esperando un FIN que no llega.
+    void detener(RuntimeException causa) {
+        abortar(causa);
+    }
+
+    void esperar() {
+        try {
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+        } catch (InterruptedException e) {
+            abortar(new CancellationException("La tubería fue interrumpida"));
+            Thread.currentThread().interrupt();
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
+    private <E, S> void trabajar(Cola<E> entrada, Paso<E, S> paso, Cola<S> salida, Timer tiempo, AtomicInteger activos) {
+        Consumer<S> emitir = salida != null ? salida::enviar : elemento -> { };
+        try {
+            E elemento;
+            while ((elemento = entrada.tomar()) != null) {
+                long inicio = System.nanoTime();
+                paso.procesar(elemento, emitir);
+                tiempo.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+            paso.terminar(emitir);
+            if (activos.decrementAndGet() == 0 && salida != null) {
+                salida.cerrar();
+            }
+        } catch (CancellationException e) {
+            // Otra etapa falló; su error es el que se informa.
+        } catch (RuntimeException e) {
+            abortar(e);
+        }
+    }
+
+    private void abortar(RuntimeException e) {
+        error.compareAndSet(null, e);
+    }
+
+    private boolean abortada() {
+        return error.get() != null;
+    }
+
+    interface Paso<E, S> {
+        void procesar(E elemento, Consumer<S> salida);
+
+        // Al agotarse la entrada, antes de cerrar la cola siguiente; por ejemplo, para guardar el último lote.
+        default void terminar(Consumer<S> salida) {
+        }
+    }
+
+    final class Cola<E> {
+        private final BlockingQueue<Object> elementos;
+
+        private Cola(BlockingQueue<Object> elementos) {
+            this.elementos = elementos;
+        }
+
+        // Bloquea mientras la cola esté llena; si la tubería se detuvo lanza CancellationException.
+        void enviar(E elemento) {
+            poner(elemento);
+        }
+
+        void cerrar() {
+            poner(FIN);
+        }
+
+        private void poner(Object elemento) {
+            try {
+                while (!elementos.offer(elemento, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                    if (abortada()) {
+                        throw new CancellationException("La tubería se detuvo");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abortar(new CancellationException("La tubería fue interrumpida"));
+                throw new CancellationException("La tubería fue interrumpida");
+            }
+        }
+
+        // null cuando la etapa anterior terminó; FIN vuelve a la cola para los demás hilos de esta etapa.
+        @SuppressWarnings("unchecked")
+        private E tomar() {
+            try {
+                while (true) {
+                    if (abortada()) {
+                        throw new CancellationException("La tubería se detuvo");
+                    }
+                    Object elemento = elementos.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                    if (elemento == FIN) {
+                        elementos.put(FIN);
+                        return null;
+                    }
+                    if (elemento != null) {
+                        return (E) elemento;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abortar(new CancellationException("La tubería fue interrumpida"));
+                throw new CancellationException("La tubería fue interrumpida");
+            }
+        }
+    }
+
+    // Vive lo mismo que el servicio dueño de la tubería: los medidores se registran una vez y cada ejecución
+    // apunta el de profundidad a sus colas nuevas.
+    static final class Metricas {
+        private final String tuberia;
+        private final MeterRegistry registro;
+        private final Map<String, Timer> tiempos = new ConcurrentHashMap<>();
+        private final Map<String, AtomicReference<BlockingQueue<?>>> colas = new ConcurrentHashMap<>();
+
+        Metricas(String tuberia, MeterRegistry registro) {
+            this.tuberia = tuberia;
+            this.registro = registro;
+        }
+
+        private Timer tiempo(String etapa) {
+            return tiempos.computeIfAbsent(etapa, nombre -> Timer.builder("literalura.ingesta.etapa")
+                    .description("Tiempo por elemento en cada etapa de la ingesta; el conteo da el rendimiento")
+                    .tag("tuberia", tuberia)
+                    .tag("etapa", nombre)
+                    .register(registro));
+        }
+
+        private AtomicReference<BlockingQueue<?>> profundidad(String etapa) {
+            return colas.computeIfAbsent(etapa, nombre -> {
+                AtomicReference<BlockingQueue<?>> cola = new AtomicReference<>();
+                Gauge.builder("literalura.ingesta.cola", cola, actual -> actual.get() == null ? 0 : actual.get().size())
+                        .description("Elementos esperando en la cola de entrada de cada etapa")
+                        .tag("tuberia", tuberia)
+                        .tag("etapa", nombre)
+                        .strongReference(true)
+                        .register(registro);
+                return cola;
+            });
+        }
+    }
+}
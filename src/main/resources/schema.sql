@@ -0,0 +1,31 @@
+-- Las secuencias se crean con allocationSize = 50; se adelantan por encima del mayor id
+-- para que las filas guardadas con IDENTITY antes del cambio no choquen con los nuevos ids.
+SELECT setval('autor_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM autor) + 50, (SELECT last_value FROM autor_seq)), true);
+SELECT setval('libro_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM libro) + 50, (SELECT last_value FROM libro_seq)), true);
+
+-- Los libros son únicos por titulo_normalizado. La restricción única sobre el título, que guarda solo los primeros
+-- 255 caracteres, hacía que dos títulos largos con el mismo comienzo se pisaran; se borra donde todavía exista.
+DO '
+DECLARE
+    restriccion text;
+BEGIN
+    FOR restriccion IN
+        SELECT c.conname FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = ''libro''::regclass AND c.contype = ''u'' AND cardinality(c.conkey) = 1 AND a.attname = ''titulo''
+    LOOP
+        EXECUTE ''ALTER TABLE libro DROP CONSTRAINT '' || quote_ident(restriccion);
+    END LOOP;
+END';
+
+-- Búsqueda local por trigramas sobre las claves normalizadas.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS ix_libro_titulo_trgm ON libro USING gin (titulo_normalizado gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS ix_autor_nombre_trgm ON autor USING gin (nombre_normalizado gin_trgm_ops);
+
+-- Periodo de vida como rango cerrado para "autores vivos entre dos años"; sin año de muerte queda abierto.
+-- Los datos con muerte anterior al nacimiento quedan fuera en lugar de hacer fallar la columna.
+ALTER TABLE autor ADD COLUMN IF NOT EXISTS vida int4range GENERATED ALWAYS AS (
+    CASE WHEN ano_de_nacimiento IS NOT NULL AND (ano_de_muerte IS NULL OR ano_de_muerte >= ano_de_nacimiento)
+         THEN int4range(ano_de_nacimiento, ano_de_muerte, '[]') END) STORED;
+CREATE INDEX IF NOT EXISTS ix_autor_vida ON autor USING gist (vida);
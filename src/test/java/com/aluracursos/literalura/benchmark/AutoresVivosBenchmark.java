@@ -0,0 +1,109 @@
+package com.aluracursos.literalura.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Primera página de "autores vivos en un periodo" sobre un millón de autores: la consulta anterior
+// (BETWEEN sobre el nacimiento con todos los libros) contra el rango con índice GiST más los títulos en lote.
+// Usa la base de BaseDatosBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutoresVivosBenchmark {
+    private static final int TAMANO_PAGINA = 20;
+
+    @Param({"1000000"})
+    public int autores;
+
+    @Param({"1850"})
+    public int minima;
+
+    @Param({"1860"})
+    public int maxima;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        jdbcTemplate = BaseDatosBenchmark.jdbcTemplate();
+        IngestaBenchmark.crearEsquema(jdbcTemplate);
+        jdbcTemplate.update("""
+                INSERT INTO autor (id, nombre, nombre_normalizado, ano_de_nacimiento, ano_de_muerte)
+                SELECT g, 'Autor ' || g, 'autor ' || g, n, CASE WHEN g % 20 = 0 THEN NULL ELSE n + 20 + g % 70 END
+                FROM generate_series(1, ?) g, LATERAL (SELECT -500 + (g::bigint * 7919) % 2500 AS n) nacimiento
+                """, autores);
+        jdbcTemplate.update("""
+                INSERT INTO libro (id, titulo, titulo_normalizado, descargas)
+                SELECT g, 'Libro ' || g, 'libro ' || g, g % 1000
+                FROM generate_series(1, ?) g
+                """, autores * 2);
+        jdbcTemplate.update("""
+                INSERT INTO libro_autor (libro_id, autor_id, posicion)
+                SELECT g, (g % ?) + 1, 0 FROM generate_series(1, ?) g
+                """, autores, autores * 2);
+        jdbcTemplate.execute("""
+                ALTER TABLE autor ADD COLUMN vida int4range GENERATED ALWAYS AS (
+                    CASE WHEN ano_de_nacimiento IS NOT NULL AND (ano_de_muerte IS NULL OR ano_de_muerte >= ano_de_nacimiento)
+                         THEN int4range(ano_de_nacimiento, ano_de_muerte, '[]') END) STORED
+                """);
+        jdbcTemplate.execute("CREATE INDEX ix_autor_vida ON autor USING gist (vida)");
+        jdbcTemplate.execute("ANALYZE autor");
+        jdbcTemplate.execute("ANALYZE libro_autor");
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> consultaAnterior() {
+        return jdbcTemplate.queryForList("""
+                SELECT a.id, a.nombre, a.ano_de_nacimiento, a.ano_de_muerte, l.titulo
+                FROM autor a
+                LEFT JOIN libro_autor la ON la.autor_id = a.id
+                LEFT JOIN libro l ON l.id = la.libro_id
+                WHERE a.ano_de_nacimiento BETWEEN ? AND ?
+                AND (a.ano_de_muerte IS NULL OR a.ano_de_muerte >= ?)
+                ORDER BY a.ano_de_nacimiento, a.id
+                """, minima, maxima, minima);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> paginaConRango() {
+        List<Long> ids = jdbcTemplate.queryForList("""
+                SELECT a.id FROM autor a
+                WHERE a.vida && int4range(?, ?, '[]') AND a.id > ?
+                ORDER BY a.id LIMIT ?
+                """, Long.class, minima, maxima, 0L, TAMANO_PAGINA + 1);
+        return jdbcTemplate.queryForList("""
+                SELECT a.id, a.nombre, a.ano_de_nacimiento, a.ano_de_muerte, l.titulo
+                FROM autor a
+                LEFT JOIN libro_autor la ON la.autor_id = a.id
+                LEFT JOIN libro l ON l.id = la.libro_id
+                WHERE a.id = ANY (?)
+                ORDER BY a.id, l.titulo
+                """, (Object) ids.toArray(Long[]::new));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AutoresVivosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
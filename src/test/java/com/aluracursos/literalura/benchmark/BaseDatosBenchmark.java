@@ -0,0 +1,70 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.LiteraluraApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Base de datos de los benchmarks. Con -Dliteralura.bench.url (y .usuario, .clave) usa ese Postgres;
+// sin ella levanta un postgres:16-alpine con Testcontainers (hace falta Docker) que dura lo que el fork.
+// Los benchmarks borran y recrean las tablas: no apuntar a la base de trabajo.
+final class BaseDatosBenchmark {
+    private static PostgreSQLContainer<?> contenedor;
+
+    private BaseDatosBenchmark() {
+    }
+
+    static JdbcTemplate jdbcTemplate() {
+        String[] conexion = conexion();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(conexion[0], conexion[1], conexion[2]);
+        Properties propiedades = new Properties();
+        propiedades.setProperty("reWriteBatchedInserts", "true");
+        dataSource.setConnectionProperties(propiedades);
+        return new JdbcTemplate(dataSource);
+    }
+
+    // La aplicación completa sin consola ni servidor web, con el esquema recreado por Hibernate.
+    // La caché de segundo nivel queda apagada para medir las consultas y no los aciertos de la caché.
+    static ConfigurableApplicationContext contextoSpring(String... propiedadesExtra) {
+        String[] conexion = conexion();
+        List<String> propiedades = new ArrayList<>(List.of(
+                "spring.datasource.url=" + conexion[0],
+                "spring.datasource.username=" + conexion[1],
+                "spring.datasource.password=" + conexion[2],
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "spring.main.banner-mode=off",
+                "spring.devtools.restart.enabled=false",
+                "logging.level.root=WARN",
+                "literalura.consola.habilitada=false",
+                "literalura.actualizacion.habilitada=false",
+                "literalura.indice.habilitado=false"));
+        propiedades.addAll(List.of(propiedadesExtra));
+        return new SpringApplicationBuilder(LiteraluraApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(propiedades.toArray(String[]::new))
+                .run();
+    }
+
+    private static synchronized String[] conexion() {
+        String url = System.getProperty("literalura.bench.url");
+        if (url != null && !url.isBlank()) {
+            return new String[]{url,
+                    System.getProperty("literalura.bench.usuario", "postgres"),
+                    System.getProperty("literalura.bench.clave", "postgres")};
+        }
+        if (contenedor == null) {
+            contenedor = new PostgreSQLContainer<>("postgres:16-alpine");
+            contenedor.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(contenedor::stop));
+        }
+        return new String[]{contenedor.getJdbcUrl(), contenedor.getUsername(), contenedor.getPassword()};
+    }
+}
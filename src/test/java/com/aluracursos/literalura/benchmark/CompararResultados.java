@@ -0,0 +1,66 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compara dos resultados JSON de JMH (-rf json), por ejemplo el de dos commits:
+// CompararResultados base.json nuevo.json
+// Una diferencia cuenta como mejora o regresión solo si es mayor que la suma de los márgenes de error.
+public class CompararResultados {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CompararResultados <base.json> <nuevo.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> base = leer(Path.of(args[0]));
+        Map<String, JsonNode> nuevo = leer(Path.of(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Base", "Nuevo", "Cambio");
+        for (Map.Entry<String, JsonNode> entrada : nuevo.entrySet()) {
+            JsonNode actual = entrada.getValue().get("primaryMetric");
+            JsonNode anterior = base.containsKey(entrada.getKey()) ? base.get(entrada.getKey()).get("primaryMetric") : null;
+            if (anterior == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", entrada.getKey(), "-", actual.get("score").asDouble(), "nuevo");
+                continue;
+            }
+            double puntajeBase = anterior.get("score").asDouble();
+            double puntajeNuevo = actual.get("score").asDouble();
+            double cambio = (puntajeNuevo - puntajeBase) / puntajeBase * 100;
+            boolean significativo = Math.abs(puntajeNuevo - puntajeBase)
+                    > error(anterior) + error(actual);
+            // En throughput más es mejor; en los modos de tiempo, menos.
+            boolean mejora = entrada.getValue().get("mode").asText().equals("thrpt") == puntajeNuevo > puntajeBase;
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s %s%n", entrada.getKey(), puntajeBase, puntajeNuevo, cambio,
+                    actual.get("scoreUnit").asText(), !significativo ? "" : mejora ? "mejora" : "REGRESIÓN");
+        }
+        base.keySet().stream()
+                .filter(clave -> !nuevo.containsKey(clave))
+                .forEach(clave -> System.out.printf("%-70s %14s %14s %9s%n", clave, "", "-", "quitado"));
+    }
+
+    private static Map<String, JsonNode> leer(Path archivo) throws IOException {
+        Map<String, JsonNode> resultados = new LinkedHashMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(archivo.toFile())) {
+            StringBuilder clave = new StringBuilder(resultado.get("benchmark").asText()
+                    .replaceFirst("^com\\.aluracursos\\.literalura\\.benchmark\\.", ""));
+            if (resultado.has("params")) {
+                Map<String, String> parametros = new TreeMap<>();
+                resultado.get("params").fields().forEachRemaining(p -> parametros.put(p.getKey(), p.getValue().asText()));
+                clave.append(' ').append(parametros);
+            }
+            resultados.put(clave.toString(), resultado);
+        }
+        return resultados;
+    }
+
+    private static double error(JsonNode metrica) {
+        double error = metrica.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
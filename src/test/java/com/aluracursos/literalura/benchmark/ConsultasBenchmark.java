@@ -0,0 +1,98 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.AutorLibroResumen;
+import com.aluracursos.literalura.modelos.AutorResumen;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.AutorRepository;
+import com.aluracursos.literalura.repository.LibroRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Las consultas de los listados del menú a través de los repositorios, con 10 mil, 100 mil y un millón de libros
+// cargados por Fixturas.poblarCatalogo. Cada tamaño corre en su propio fork y recarga la base.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultasBenchmark {
+    private static final int TAMANO_PAGINA = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int libros;
+
+    private ConfigurableApplicationContext contexto;
+    private LibroRepository libroRepository;
+    private AutorRepository autorRepository;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = BaseDatosBenchmark.contextoSpring();
+        Fixturas.poblarCatalogo(contexto.getBean(JdbcTemplate.class), libros);
+        libroRepository = contexto.getBean(LibroRepository.class);
+        autorRepository = contexto.getBean(AutorRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<LibroResumen> paginaLibros() {
+        return libroRepository.findPaginaLibros(libros / 2, Limit.of(TAMANO_PAGINA + 1));
+    }
+
+    @Benchmark
+    public List<AutorResumen> paginaAutores() {
+        return autorRepository.findPaginaAutores(libros / 4, Limit.of(TAMANO_PAGINA + 1));
+    }
+
+    @Benchmark
+    public List<LibroResumen> topPorDescargas() {
+        return libroRepository.findTopPorDescargas(PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public List<LibroResumen> topPorIdioma() {
+        return libroRepository.findTopPorIdiomas(List.of("es"), PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public List<Long> busquedaPorSimilitud() {
+        return libroRepository.buscarIdsPorSimilitud("viaje noche", 10);
+    }
+
+    @Benchmark
+    public List<AutorLibroResumen> autoresVivosEnPeriodo() {
+        List<Long> ids = autorRepository.findIdsVivosEnPeriodo(1850, 1860, 0L, TAMANO_PAGINA + 1);
+        return ids.isEmpty() ? List.of() : autorRepository.findAutoresConLibrosByIds(ids);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConsultasBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.Respuesta;
+import com.aluracursos.literalura.servicios.ConvierteDatos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Deserialización de páginas de Gutendex: desde String, desde el flujo y libro por libro.
+// Con -Dliteralura.bench.paginas=<directorio> usa las páginas grabadas con Fixturas.main en lugar de las generadas.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvierteDatosBenchmark {
+
+    @Param({"32"})
+    public int librosPorPagina;
+
+    private final ConvierteDatos convierteDatos = new ConvierteDatos();
+    private List<String> paginas;
+    private byte[][] bytes;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        paginas = Fixturas.paginas(8, librosPorPagina);
+        bytes = paginas.stream().map(pagina -> pagina.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    }
+
+    @Benchmark
+    public Respuesta desdeString() {
+        return convierteDatos.obtenerDatos(paginas.get(proxima()), Respuesta.class);
+    }
+
+    @Benchmark
+    public Respuesta desdeFlujo() {
+        return convierteDatos.obtenerDatos(new ByteArrayInputStream(bytes[proxima()]), Respuesta.class);
+    }
+
+    @Benchmark
+    public Respuesta libroPorLibro(Blackhole blackhole) {
+        return convierteDatos.recorrerLibros(new ByteArrayInputStream(bytes[proxima()]), blackhole::consume);
+    }
+
+    private int proxima() {
+        siguiente = (siguiente + 1) % bytes.length;
+        return siguiente;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConvierteDatosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
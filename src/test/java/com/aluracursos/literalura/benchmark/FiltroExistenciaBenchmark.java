@@ -0,0 +1,94 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.servicios.FiltroExistencia;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.util.concurrent.TimeUnit;
+
+// Simula una ingesta donde la mayoría de los títulos son nuevos y cuenta las consultas
+// a la base que haría guardarPrimerLibroSiNoExiste con y sin el filtro.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiltroExistenciaBenchmark {
+
+    @Param({"100000"})
+    public int clavesCargadas;
+
+    @Param({"10"})
+    public int porcentajeConocidos;
+
+    private FiltroExistencia filtro;
+    private long siguiente;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Consultas {
+        public long librosIngeridos;
+        public long consultasConFiltro;
+        public long consultasSinFiltro;
+
+        @Setup(Level.Iteration)
+        public void reiniciar() {
+            librosIngeridos = 0;
+            consultasConFiltro = 0;
+            consultasSinFiltro = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        filtro = new FiltroExistencia(null, null);
+        for (int i = 0; i < clavesCargadas; i++) {
+            filtro.registrarLibro("libro conocido " + i);
+            filtro.registrarAutor("autor conocido " + i);
+        }
+        System.out.printf("%nMemoria del filtro: %d KB, %d bytes por cada 100k claves%n",
+                filtro.memoriaBytes() / 1024, filtro.bytesPorCienMilClaves());
+    }
+
+    @Benchmark
+    public void ingerirLibro(Consultas consultas) {
+        long n = siguiente++;
+        boolean conocido = n % 100 < porcentajeConocidos;
+        String titulo = (conocido ? "libro conocido " + (n % clavesCargadas) : "libro nuevo " + n);
+        String autor = (conocido ? "autor conocido " + (n % clavesCargadas) : "autor nuevo " + n);
+
+        consultas.librosIngeridos++;
+        consultas.consultasSinFiltro += conocido ? 1 : 2;
+        if (filtro.puedeExistirLibro(titulo)) {
+            consultas.consultasConFiltro++;
+            if (conocido) {
+                return;
+            }
+        }
+        if (filtro.puedeExistirAutor(autor)) {
+            consultas.consultasConFiltro++;
+        }
+        filtro.registrarLibro(titulo);
+        filtro.registrarAutor(autor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FiltroExistenciaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
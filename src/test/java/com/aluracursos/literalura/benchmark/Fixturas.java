@@ -0,0 +1,194 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.Respuesta;
+import com.aluracursos.literalura.servicios.ConsumoAPI;
+import com.aluracursos.literalura.servicios.ConvierteDatos;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Datos de prueba deterministas para los benchmarks: páginas con el formato de Gutendex, DatosLibros
+// y un catálogo completo cargado con generate_series. La misma semilla da los mismos datos en cada commit,
+// así los resultados se pueden comparar. main graba páginas reales de la API para -Dliteralura.bench.paginas.
+final class Fixturas {
+    static final String[] IDIOMAS = {"en", "es", "fr", "de", "it", "pt", "ru", "zh", "ja", "ar"};
+    private static final String[] PALABRAS = {"historia", "viaje", "noche", "mar", "guerra", "amor", "ciudad",
+            "jardín", "sombra", "canción", "río", "montaña", "carta", "reino", "invierno", "memoria"};
+    private static final String[] APELLIDOS = {"García", "Smith", "Müller", "Rossi", "Dupont", "Silva", "Ivanov",
+            "Tanaka", "Hernández", "O'Brien", "Łukasz", "Núñez"};
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private Fixturas() {
+    }
+
+    static List<DatosLibros> datosLibros(long desde, int cantidad) {
+        List<DatosLibros> libros = new ArrayList<>(cantidad);
+        for (long n = desde; n < desde + cantidad; n++) {
+            SplittableRandom azar = new SplittableRandom(n);
+            List<DatosAutor> autores = new ArrayList<>();
+            autores.add(autor(n / 4));
+            if (n % 5 == 0) {
+                autores.add(autor(n / 4 + 1_000_003));
+            }
+            List<String> idiomas = n % 7 == 0
+                    ? List.of(IDIOMAS[(int) (n % IDIOMAS.length)], "en")
+                    : List.of(IDIOMAS[(int) (n % IDIOMAS.length)]);
+            libros.add(new DatosLibros(titulo(n, azar), autores, idiomas, azar.nextInt(100_000), n));
+        }
+        return libros;
+    }
+
+    // Una página de /books/ con los campos que devuelve Gutendex, incluidos los que la aplicación ignora,
+    // para que el costo de saltarlos también entre en la medición.
+    static String paginaGutendex(int pagina, int librosPorPagina) {
+        List<Map<String, Object>> resultados = new ArrayList<>(librosPorPagina);
+        long desde = (long) (pagina - 1) * librosPorPagina;
+        long id = desde;
+        for (DatosLibros libro : datosLibros(desde, librosPorPagina)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", ++id);
+            json.put("title", libro.titulo());
+            json.put("authors", libro.autor().stream().map(autor -> {
+                Map<String, Object> datos = new LinkedHashMap<>();
+                datos.put("name", autor.nombre());
+                datos.put("birth_year", autor.anoDeNacimiento());
+                datos.put("death_year", autor.anoDeMuerte());
+                return datos;
+            }).toList());
+            json.put("translators", List.of());
+            json.put("subjects", List.of("Fiction", "Adventure stories", "Historical fiction -- " + libro.idioma().get(0)));
+            json.put("bookshelves", List.of("Best Books Ever Listings"));
+            json.put("languages", libro.idioma());
+            json.put("copyright", false);
+            json.put("media_type", "Text");
+            json.put("formats", new TreeMap<>(Map.of(
+                    "text/html", "https://www.gutenberg.org/ebooks/" + id + ".html.images",
+                    "application/epub+zip", "https://www.gutenberg.org/ebooks/" + id + ".epub3.images",
+                    "text/plain; charset=us-ascii", "https://www.gutenberg.org/ebooks/" + id + ".txt.utf-8",
+                    "image/jpeg", "https://www.gutenberg.org/cache/epub/" + id + "/pg" + id + ".cover.medium.jpg")));
+            json.put("download_count", libro.descargas());
+            resultados.add(json);
+        }
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("count", 75_000);
+        respuesta.put("next", "https://gutendex.com/books/?page=" + (pagina + 1));
+        respuesta.put("previous", pagina > 1 ? "https://gutendex.com/books/?page=" + (pagina - 1) : null);
+        respuesta.put("results", resultados);
+        try {
+            return mapper.writeValueAsString(respuesta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Las páginas grabadas con main si se indicó -Dliteralura.bench.paginas; si no, generadas.
+    static List<String> paginas(int cantidad, int librosPorPagina) {
+        String directorio = System.getProperty("literalura.bench.paginas");
+        if (directorio == null || directorio.isBlank()) {
+            List<String> paginas = new ArrayList<>(cantidad);
+            for (int pagina = 1; pagina <= cantidad; pagina++) {
+                paginas.add(paginaGutendex(pagina, librosPorPagina));
+            }
+            return paginas;
+        }
+        try (Stream<Path> archivos = Files.list(Path.of(directorio))) {
+            List<String> paginas = new ArrayList<>();
+            for (Path archivo : archivos.filter(a -> a.toString().endsWith(".json")).sorted().toList()) {
+                paginas.add(Files.readString(archivo, StandardCharsets.UTF_8));
+            }
+            if (paginas.isEmpty()) {
+                throw new IllegalStateException("No hay páginas .json en " + directorio);
+            }
+            return paginas;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Catálogo de "libros" filas sobre el esquema que crea Hibernate: la mitad de autores que de libros,
+    // uno de cada cinco libros con dos autores y uno de cada siete en dos idiomas, como en datosLibros.
+    static void poblarCatalogo(JdbcTemplate jdbcTemplate, int libros) {
+        int autores = Math.max(1, libros / 2);
+        jdbcTemplate.execute("TRUNCATE libro_autor, libro_idioma, libro, autor, idioma RESTART IDENTITY");
+        jdbcTemplate.update("""
+                INSERT INTO autor (id, nombre, nombre_normalizado, ano_de_nacimiento, ano_de_muerte)
+                SELECT g, 'Autor ' || g, 'autor ' || g, n, CASE WHEN g % 20 = 0 THEN NULL ELSE n + 20 + g % 70 END
+                FROM generate_series(1, ?) g, LATERAL (SELECT -500 + (g::bigint * 7919) % 2500 AS n) nacimiento
+                """, autores);
+        jdbcTemplate.update("""
+                INSERT INTO libro (id, titulo, titulo_normalizado, descargas, gutendex_id)
+                SELECT g, 'Libro ' || (ARRAY[%s])[g %% %d + 1] || ' ' || g,
+                       'libro ' || (ARRAY[%s])[g %% %d + 1] || ' ' || g, (g::bigint * 7919) %% 100000, g
+                FROM generate_series(1, ?) g
+                """.formatted(literales(PALABRAS), PALABRAS.length, literales(PALABRAS), PALABRAS.length), libros);
+        jdbcTemplate.execute("INSERT INTO idioma (codigo) SELECT unnest(ARRAY[" + literales(IDIOMAS) + "])");
+        jdbcTemplate.update("""
+                INSERT INTO libro_autor (libro_id, autor_id, posicion)
+                SELECT g, g % ? + 1, 0 FROM generate_series(1, ?) g
+                UNION ALL
+                SELECT g, (g + 1) % ? + 1, 1 FROM generate_series(5, ?, 5) g
+                """, autores, libros, autores, libros);
+        jdbcTemplate.update("""
+                INSERT INTO libro_idioma (libro_id, idioma_id)
+                SELECT g, i.id FROM generate_series(1, ?) g
+                JOIN idioma i ON i.codigo = (ARRAY[%s])[g %% %d + 1]
+                UNION
+                SELECT g, i.id FROM generate_series(7, ?, 7) g JOIN idioma i ON i.codigo = 'en'
+                """.formatted(literales(IDIOMAS), IDIOMAS.length), libros, libros);
+        jdbcTemplate.execute("SELECT setval('autor_seq', (SELECT max(id) FROM autor) + 50)");
+        jdbcTemplate.execute("SELECT setval('libro_seq', (SELECT max(id) FROM libro) + 50)");
+        jdbcTemplate.execute("ANALYZE autor, libro, idioma, libro_autor, libro_idioma");
+    }
+
+    private static DatosAutor autor(long n) {
+        int nacimiento = 1500 + (int) (n * 7919 % 450);
+        return new DatosAutor(APELLIDOS[(int) (n % APELLIDOS.length)] + ", Autor " + n, nacimiento,
+                n % 20 == 0 ? null : nacimiento + 25 + (int) (n % 60));
+    }
+
+    private static String titulo(long n, SplittableRandom azar) {
+        StringBuilder titulo = new StringBuilder();
+        for (int i = 0, palabras = 2 + azar.nextInt(6); i < palabras; i++) {
+            String palabra = PALABRAS[azar.nextInt(PALABRAS.length)];
+            titulo.append(i == 0 ? Character.toUpperCase(palabra.charAt(0)) + palabra.substring(1) : palabra).append(' ');
+        }
+        return titulo.append(n).toString();
+    }
+
+    private static String literales(String[] valores) {
+        return String.join(",", Stream.of(valores).map(valor -> "'" + valor + "'").toList());
+    }
+
+    // Graba páginas reales: Fixturas <directorio> <páginas> [url inicial].
+    public static void main(String[] args) throws IOException {
+        Path directorio = Path.of(args[0]);
+        int paginas = Integer.parseInt(args[1]);
+        String url = args.length > 2 ? args[2] : "https://gutendex.com/books/";
+        Files.createDirectories(directorio);
+        ConsumoAPI consumoAPI = new ConsumoAPI();
+        ConvierteDatos convierteDatos = new ConvierteDatos();
+        try {
+            for (int pagina = 1; pagina <= paginas && url != null; pagina++) {
+                String json = consumoAPI.obtenerDatos(url);
+                Files.writeString(directorio.resolve("pagina-%03d.json".formatted(pagina)), json, StandardCharsets.UTF_8);
+                url = convierteDatos.obtenerDatos(json, Respuesta.class).siguiente();
+            }
+        } finally {
+            consumoAPI.cerrar();
+        }
+    }
+}
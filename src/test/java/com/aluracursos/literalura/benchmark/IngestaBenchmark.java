@@ -0,0 +1,111 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.servicios.AltaCatalogo;
+import com.aluracursos.literalura.servicios.FiltroExistencia;
+import com.aluracursos.literalura.servicios.NormalizadorTexto;
+import com.aluracursos.literalura.servicios.PersistenciaLotes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mide libros por segundo guardados con PersistenciaLotes sobre la base de BaseDatosBenchmark.
+// Las tablas se vacían al empezar.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestaBenchmark {
+    private static final int LIBROS_POR_PAGINA = 32;
+
+    private PersistenciaLotes persistencia;
+    private long siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        JdbcTemplate jdbcTemplate = BaseDatosBenchmark.jdbcTemplate();
+        crearEsquema(jdbcTemplate);
+        persistencia = new PersistenciaLotes(jdbcTemplate, new AltaCatalogo(jdbcTemplate), new NormalizadorTexto(), new FiltroExistencia(null, null), evento -> { });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIBROS_POR_PAGINA)
+    public int guardarPagina() {
+        List<DatosLibros> pagina = new ArrayList<>(LIBROS_POR_PAGINA);
+        for (int i = 0; i < LIBROS_POR_PAGINA; i++) {
+            long n = siguiente++;
+            DatosAutor autor = new DatosAutor("Autor " + (n / 4), 1800 + (int) (n % 100), 1870 + (int) (n % 100));
+            pagina.add(new DatosLibros("Libro de prueba " + n, List.of(autor), List.of("es"), (int) (n % 10_000), n));
+        }
+        return persistencia.guardarLote(pagina);
+    }
+
+    static void crearEsquema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS libro_autor, libro_idioma, idioma, libro, autor");
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS libro_seq, autor_seq");
+        jdbcTemplate.execute("CREATE SEQUENCE autor_seq INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE SEQUENCE libro_seq INCREMENT BY 50");
+        jdbcTemplate.execute("""
+                CREATE TABLE autor (
+                    id bigint PRIMARY KEY,
+                    nombre varchar(255) UNIQUE,
+                    nombre_normalizado varchar(255) UNIQUE,
+                    ano_de_nacimiento integer,
+                    ano_de_muerte integer)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE libro (
+                    id bigint PRIMARY KEY,
+                    titulo varchar(255) UNIQUE,
+                    titulo_normalizado varchar(500) UNIQUE,
+                    descargas integer,
+                    gutendex_id bigint UNIQUE)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE idioma (
+                    id smallint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    codigo varchar(16) NOT NULL UNIQUE)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE libro_autor (
+                    libro_id bigint NOT NULL REFERENCES libro (id),
+                    autor_id bigint NOT NULL REFERENCES autor (id),
+                    posicion integer NOT NULL,
+                    PRIMARY KEY (libro_id, posicion),
+                    UNIQUE (libro_id, autor_id))
+                """);
+        jdbcTemplate.execute("CREATE INDEX ix_libro_autor_autor ON libro_autor (autor_id, libro_id)");
+        jdbcTemplate.execute("""
+                CREATE TABLE libro_idioma (
+                    libro_id bigint NOT NULL REFERENCES libro (id),
+                    idioma_id smallint NOT NULL REFERENCES idioma (id),
+                    PRIMARY KEY (libro_id, idioma_id))
+                """);
+        jdbcTemplate.execute("CREATE INDEX ix_libro_idioma_idioma ON libro_idioma (idioma_id, libro_id)");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IngestaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
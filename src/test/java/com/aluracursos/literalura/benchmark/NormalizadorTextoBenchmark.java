@@ -0,0 +1,69 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.servicios.NormalizadorTexto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizadorTextoBenchmark {
+
+    @Param({
+            "Don Quijote de la Mancha",
+            "  Cien   años de   soledad: Edición ÁLBUM  ",
+            "The Complete Works of William Shakespeare, Volume I — Comedies"
+    })
+    public String texto;
+
+    private final NormalizadorTexto normalizador = new NormalizadorTexto();
+
+    @Benchmark
+    public String normalizadorUnaPasada() {
+        return normalizador.normalizar(texto, 500);
+    }
+
+    @Benchmark
+    public String cadenaDeReplaceAll() {
+        return normalizarConRegex(texto);
+    }
+
+    // Copia de Principal.normalizarTexto antes de extraer NormalizadorTexto, usada como referencia.
+    static String normalizarConRegex(String texto) {
+        if (texto == null) return null;
+
+        texto = texto.toLowerCase();
+        texto = texto.replaceAll("[áàäâ]", "a")
+                .replaceAll("[éèëê]", "e")
+                .replaceAll("[íìïî]", "i")
+                .replaceAll("[óòöô]", "o")
+                .replaceAll("[úùüû]", "u")
+                .replaceAll("\\s+", " ")
+                .trim();
+        if (texto.length() > 500) {
+            texto = texto.substring(0, 500);
+        }
+        return texto;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NormalizadorTextoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.aluracursos.literalura.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Prueba de carga contra la API REST de una instancia ya levantada (mvn spring-boot:run):
+// PruebaCarga [url base] [clientes] [duración ISO-8601]   por ejemplo   PruebaCarga http://localhost:8080 300 PT30S
+// Cada cliente repite en bucle las rutas de RUTAS sin pausa y reenvía el último ETag de cada una, como un navegador.
+// Al final imprime peticiones por segundo, latencias por percentil y cuántas respuestas fueron 304 o errores.
+public class PruebaCarga {
+    private static final List<String> RUTAS = List.of(
+            "/api/libros?tamano=20",
+            "/api/libros?idioma=es,fr&tamano=20",
+            "/api/libros/top?n=10",
+            "/api/libros/top?n=10&idioma=en",
+            "/api/libros/buscar?texto=quijote&limite=10",
+            "/api/autores?tamano=50",
+            "/api/autores/vivos?desde=1800&hasta=1850&tamano=20");
+
+    public static void main(String[] args) throws InterruptedException {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duracion = args.length > 2 ? Duration.parse(args[2]) : Duration.ofSeconds(30);
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, clientes / 8)))
+                .build();
+        Map<String, String> etags = new ConcurrentHashMap<>();
+        List<Latencias> latencias = new ArrayList<>(clientes);
+        LongAdder noModificadas = new LongAdder();
+        LongAdder errores = new LongAdder();
+        long fin = System.nanoTime() + duracion.toNanos();
+
+        ExecutorService hilos = Executors.newFixedThreadPool(clientes);
+        CountDownLatch terminados = new CountDownLatch(clientes);
+        for (int c = 0; c < clientes; c++) {
+            Latencias propias = new Latencias();
+            latencias.add(propias);
+            int primera = c;
+            hilos.execute(() -> {
+                int n = 0;
+                try {
+                    while (System.nanoTime() < fin) {
+                        String ruta = RUTAS.get((primera + n) % RUTAS.size());
+                        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(base + ruta))
+                                .header("Accept-Encoding", "gzip")
+                                .timeout(Duration.ofSeconds(30));
+                        String etag = etags.get(ruta);
+                        if (etag != null) {
+                            peticion.header("If-None-Match", etag);
+                        }
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> respuesta = http.send(peticion.build(), HttpResponse.BodyHandlers.ofByteArray());
+                            if (respuesta.statusCode() == 304) {
+                                noModificadas.increment();
+                            } else if (respuesta.statusCode() != 200) {
+                                errores.increment();
+                            }
+                            respuesta.headers().firstValue("ETag").ifPresent(valor -> etags.put(ruta, valor));
+                        } catch (IOException e) {
+                            errores.increment();
+                        }
+                        propias.agregar(System.nanoTime() - inicio);
+                        n++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    terminados.countDown();
+                }
+            });
+        }
+        terminados.await();
+        hilos.shutdown();
+
+        long[] todas = latencias.stream()
+                .flatMapToLong(propias -> Arrays.stream(propias.valores, 0, propias.cantidad))
+                .sorted()
+                .toArray();
+        System.out.printf("Clientes: %d | Peticiones: %d | %.0f por segundo | 304: %d | Errores: %d%n",
+                clientes, todas.length, todas.length / (duracion.toNanos() / 1e9), noModificadas.sum(), errores.sum());
+        if (todas.length > 0) {
+            System.out.printf("Latencia ms  p50: %.2f | p95: %.2f | p99: %.2f | máx: %.2f%n",
+                    percentil(todas, 0.50), percentil(todas, 0.95), percentil(todas, 0.99), todas[todas.length - 1] / 1e6);
+        }
+        System.exit(errores.sum() == 0 ? 0 : 1);
+    }
+
+    // Solo la escribe su cliente; se lee después de que todos terminaron.
+    private static final class Latencias {
+        private long[] valores = new long[4096];
+        private int cantidad;
+
+        void agregar(long nanos) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = nanos;
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,135 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.servicios.RankingDescargas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compara el top N del ranking en memoria con ordenar el catálogo completo, en memoria y en Postgres.
+// Los métodos consultaSql* usan BaseDatosBenchmark; sin Docker ni base disponible, excluirlos con -e consultaSql.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingDescargasBenchmark {
+    private static final String[] IDIOMAS = {"en", "es", "fr", "de", "it", "pt", "ru", "zh", "ja", "ar"};
+
+    @Param({"1000000"})
+    public int libros;
+
+    @Param({"10"})
+    public int n;
+
+    private RankingDescargas ranking;
+    private List<LibroResumen> catalogo;
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        ranking = new RankingDescargas(null, 100);
+        catalogo = new ArrayList<>(libros);
+        SplittableRandom azar = new SplittableRandom(42);
+        for (long id = 1; id <= libros; id++) {
+            LibroResumen libro = new LibroResumen(id, "Libro " + id, "Autor " + (id / 4), null, null,
+                    IDIOMAS[(int) (id % IDIOMAS.length)], azar.nextInt(100_000));
+            catalogo.add(libro);
+            ranking.registrar(libro);
+        }
+    }
+
+    @Benchmark
+    public List<LibroResumen> rankingTop() {
+        return ranking.top(n).orElseThrow();
+    }
+
+    @Benchmark
+    public List<LibroResumen> rankingTopPorIdioma() {
+        return ranking.topPorIdioma("es", n).orElseThrow();
+    }
+
+    // Lo que hacía el menú antes: traer todo ordenado por descargas y quedarse con los primeros.
+    @Benchmark
+    @Warmup(iterations = 1, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public List<LibroResumen> ordenarEnMemoria() {
+        return catalogo.stream()
+                .sorted(Comparator.comparing(LibroResumen::descargas).reversed())
+                .limit(n)
+                .toList();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BaseDeDatos {
+        @Param({"false", "true"})
+        public boolean conIndice;
+
+        JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void preparar(RankingDescargasBenchmark benchmark) {
+            jdbcTemplate = BaseDatosBenchmark.jdbcTemplate();
+            IngestaBenchmark.crearEsquema(jdbcTemplate);
+            jdbcTemplate.update("""
+                    INSERT INTO libro (id, titulo, titulo_normalizado, descargas)
+                    SELECT g, 'Libro ' || g, 'libro ' || g, (random() * 100000)::int
+                    FROM generate_series(1, ?) g
+                    """, benchmark.libros);
+            jdbcTemplate.execute("""
+                    INSERT INTO idioma (codigo)
+                    SELECT unnest(ARRAY['en','es','fr','de','it','pt','ru','zh','ja','ar'])
+                    """);
+            jdbcTemplate.execute("""
+                    INSERT INTO libro_idioma (libro_id, idioma_id)
+                    SELECT l.id, i.id FROM libro l JOIN idioma i ON i.id = l.id % 10 + 1
+                    """);
+            if (conIndice) {
+                jdbcTemplate.execute("CREATE INDEX ix_libro_descargas ON libro (descargas)");
+            }
+            jdbcTemplate.execute("ANALYZE libro_idioma");
+            jdbcTemplate.execute("ANALYZE libro");
+        }
+    }
+
+    @Benchmark
+    public List<Long> consultaSqlTop(BaseDeDatos base) {
+        return base.jdbcTemplate.queryForList(
+                "SELECT id FROM libro ORDER BY descargas DESC LIMIT ?", Long.class, n);
+    }
+
+    @Benchmark
+    public List<Long> consultaSqlTopPorIdioma(BaseDeDatos base) {
+        return base.jdbcTemplate.queryForList(
+                """
+                SELECT l.id FROM libro l
+                WHERE EXISTS (SELECT 1 FROM libro_idioma li JOIN idioma i ON i.id = li.idioma_id
+                              WHERE li.libro_id = l.id AND i.codigo = ?)
+                ORDER BY l.descargas DESC LIMIT ?
+                """, Long.class, "es", n);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RankingDescargasBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
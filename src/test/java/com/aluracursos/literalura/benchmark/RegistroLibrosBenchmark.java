@@ -0,0 +1,70 @@
+package com.aluracursos.literalura.benchmark;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.servicios.RegistroLibros;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// El camino de la opción 1 del menú (deduplicar y guardar un libro con autores e idiomas) con la aplicación
+// completa sobre la base de BaseDatosBenchmark: un libro nuevo por operación y un libro ya registrado.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RegistroLibrosBenchmark {
+    private static final int REGISTRADOS = 1_000;
+
+    private ConfigurableApplicationContext contexto;
+    private RegistroLibros registroLibros;
+    private List<DatosLibros> registrados;
+    private long siguienteNuevo = REGISTRADOS;
+    private int siguienteRegistrado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = BaseDatosBenchmark.contextoSpring();
+        registroLibros = contexto.getBean(RegistroLibros.class);
+        registrados = Fixturas.datosLibros(0, REGISTRADOS);
+        registrados.forEach(registroLibros::guardarSiNoExiste);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public RegistroLibros.Registro guardarNuevo() {
+        return registroLibros.guardarSiNoExiste(Fixturas.datosLibros(siguienteNuevo++, 1).get(0));
+    }
+
+    @Benchmark
+    public RegistroLibros.Registro guardarExistente() {
+        siguienteRegistrado = (siguienteRegistrado + 1) % REGISTRADOS;
+        return registroLibros.guardarSiNoExiste(registrados.get(siguienteRegistrado));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RegistroLibrosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.aluracursos.literalura.controladores;
+
+import com.aluracursos.literalura.modelos.Idioma;
+import com.aluracursos.literalura.modelos.Libro;
+import com.aluracursos.literalura.principal.Principal;
+import com.aluracursos.literalura.repository.IdiomaRepository;
+import com.aluracursos.literalura.repository.LibroRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Los libros de prueba usan un código de idioma propio, así el filtro los separa del resto del catálogo.
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class CatalogoControllerTest {
+    private static final String IDIOMA = "qq";
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private IdiomaRepository idiomaRepository;
+
+    @BeforeEach
+    void crearLibros() {
+        Idioma idioma = idiomaRepository.findByCodigo(IDIOMA).orElseGet(() -> idiomaRepository.save(new Idioma(IDIOMA)));
+        for (int i = 0; i < 3; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Libro de la API " + i);
+            libro.setTituloNormalizado("libro de la api " + i);
+            libro.setDescargas(10 * i);
+            libro.setIdiomas(Set.of(idioma));
+            libroRepository.saveAndFlush(libro);
+        }
+    }
+
+    @Test
+    void paginaLosLibrosPorIdiomaConUnCursor() throws Exception {
+        MvcResult primera = mockMvc.perform(get("/api/libros").param("idioma", IDIOMA).param("tamano", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(2)))
+                .andExpect(jsonPath("$.elementos[0].titulo").value("Libro de la API 0"))
+                .andReturn();
+        String cursor = JsonPath.read(primera.getResponse().getContentAsString(), "$.siguiente").toString();
+
+        mockMvc.perform(get("/api/libros").param("idioma", IDIOMA).param("tamano", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(1)))
+                .andExpect(jsonPath("$.elementos[0].titulo").value("Libro de la API 2"))
+                .andExpect(jsonPath("$.siguiente").value(nullValue()));
+    }
+
+    @Test
+    void respondeNoModificadoCuandoElEtagCoincide() throws Exception {
+        MvcResult respuesta = mockMvc.perform(get("/api/libros").param("idioma", IDIOMA))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = respuesta.getResponse().getHeader("ETag");
+
+        MvcResult repetida = mockMvc.perform(get("/api/libros").param("idioma", IDIOMA).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertThat(repetida.getResponse().getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rechazaParametrosFueraDeRango() throws Exception {
+        mockMvc.perform(get("/api/libros").param("tamano", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/libros/top").param("n", "1000")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/autores/vivos").param("desde", "1900").param("hasta", "1800")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,163 @@
+package com.aluracursos.literalura.repository;
+
+import com.aluracursos.literalura.modelos.Autor;
+import com.aluracursos.literalura.modelos.AutorLibroResumen;
+import com.aluracursos.literalura.modelos.Idioma;
+import com.aluracursos.literalura.modelos.Libro;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.principal.Principal;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "literalura.estadisticas-hibernate=true")
+@Transactional
+class ConsultasListadoTest {
+    private static final int AUTORES = 5;
+    private static final int LIBROS_POR_AUTOR = 3;
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private IdiomaRepository idiomaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void crearCatalogo() {
+        Idioma espanol = idiomaRepository.findByCodigo("es").orElseGet(() -> idiomaRepository.save(new Idioma("es")));
+        Idioma ingles = idiomaRepository.findByCodigo("en").orElseGet(() -> idiomaRepository.save(new Idioma("en")));
+        for (int i = 0; i < AUTORES; i++) {
+            Autor autor = new Autor("Autor de prueba " + i, 1800 + i, 1880 + i);
+            autor.setNombreNormalizado("autor de prueba " + i);
+            autorRepository.save(autor);
+            for (int j = 0; j < LIBROS_POR_AUTOR; j++) {
+                Libro libro = new Libro();
+                libro.setTitulo("Libro de prueba " + i + "-" + j);
+                libro.setTituloNormalizado("libro de prueba " + i + "-" + j);
+                libro.setDescargas(i * 10 + j);
+                libro.setIdiomas(j == 0 ? Set.of(espanol, ingles) : Set.of(espanol));
+                libro.setAutores(new ArrayList<>(List.of(autor)));
+                libroRepository.save(libro);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void listarUnaPaginaDeLibrosEsUnaSolaConsulta() {
+        assertThat(libroRepository.findPaginaLibros(0, Limit.of(10))).hasSize(10);
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void laPaginaSiguienteEmpiezaTrasElUltimoId() {
+        List<LibroResumen> primera = libroRepository.findPaginaLibros(0, Limit.of(5));
+        List<LibroResumen> segunda = libroRepository.findPaginaLibros(primera.get(4).id(), Limit.of(5));
+
+        assertThat(segunda).hasSize(5);
+        assertThat(segunda.get(0).id()).isGreaterThan(primera.get(4).id());
+        assertThat(autorRepository.findPaginaAutores(0, Limit.of(3))).hasSize(3);
+    }
+
+    @Test
+    void filtrarPorIdiomaYTopDescargasSonUnaConsultaCadaUno() {
+        assertThat(libroRepository.findPaginaPorIdiomas(List.of("es"), 0, Limit.of(AUTORES * LIBROS_POR_AUTOR))).hasSize(AUTORES * LIBROS_POR_AUTOR);
+        assertThat(libroRepository.findTopPorDescargas(PageRequest.of(0, 10))).hasSize(10);
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void autoresVivosConSusLibrosSonDosConsultasPorPagina() {
+        List<Long> ids = autorRepository.findIdsVivosEnPeriodo(1800, 1810, 0, 10);
+        List<AutorLibroResumen> filas = autorRepository.findAutoresConLibrosByIds(ids);
+
+        assertThat(ids).hasSizeGreaterThanOrEqualTo(AUTORES);
+        assertThat(filas).hasSizeGreaterThanOrEqualTo(AUTORES * LIBROS_POR_AUTOR);
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void incluyeAutoresNacidosAntesQueSeguianVivosEnElPeriodo() {
+        Autor longevo = new Autor("Autor longevo", 1700, 1790);
+        longevo.setNombreNormalizado("autor longevo");
+        Autor posterior = new Autor("Autor posterior", 1795, null);
+        posterior.setNombreNormalizado("autor posterior");
+        autorRepository.saveAll(List.of(longevo, posterior));
+        entityManager.flush();
+
+        List<Long> ids = autorRepository.findIdsVivosEnPeriodo(1780, 1790, 0, 100);
+
+        assertThat(ids).contains(longevo.getId()).doesNotContain(posterior.getId());
+        assertThat(autorRepository.findIdsVivosEnPeriodo(1850, 1860, 0, 100)).contains(posterior.getId());
+    }
+
+    @Test
+    void laPaginaDeAutoresVivosEmpiezaTrasElUltimoId() {
+        List<Long> primera = autorRepository.findIdsVivosEnPeriodo(1800, 1810, 0, 2);
+        List<Long> segunda = autorRepository.findIdsVivosEnPeriodo(1800, 1810, primera.get(1), 2);
+
+        assertThat(primera).hasSize(2);
+        assertThat(segunda).isNotEmpty().allMatch(id -> id > primera.get(1));
+    }
+
+    @Test
+    void unLibroConVariosAutoresEIdiomasSigueSiendoUnaFila() {
+        Autor coautor = new Autor("Coautor de prueba", 1801, 1870);
+        coautor.setNombreNormalizado("coautor de prueba");
+        autorRepository.save(coautor);
+        Libro libro = new Libro();
+        libro.setTitulo("Libro a cuatro manos");
+        libro.setTituloNormalizado("libro a cuatro manos");
+        libro.setDescargas(1);
+        libro.setIdiomas(Set.of(idiomaRepository.findByCodigo("es").orElseThrow(), idiomaRepository.findByCodigo("en").orElseThrow()));
+        libro.setAutores(new ArrayList<>(List.of(autorRepository.findByNombreNormalizado("autor de prueba 0").orElseThrow(), coautor)));
+        libroRepository.save(libro);
+        entityManager.flush();
+        estadisticas.clear();
+
+        List<LibroResumen> resumen = libroRepository.findResumenByIds(List.of(libro.getId()));
+
+        assertThat(resumen).singleElement().satisfies(fila -> {
+            assertThat(fila.autor()).isEqualTo("Autor de prueba 0; Coautor de prueba");
+            assertThat(fila.anoDeNacimiento()).isEqualTo(1800);
+            assertThat(fila.codigosIdioma()).containsExactly("en", "es");
+        });
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void filtrarPorVariosIdiomasDevuelveCadaLibroUnaVez() {
+        List<LibroResumen> libros = libroRepository.findPaginaPorIdiomas(List.of("es", "en"), 0, Limit.of(1000));
+
+        assertThat(libros).extracting(LibroResumen::id).doesNotHaveDuplicates();
+        assertThat(libroRepository.findPaginaPorIdiomas(List.of("en"), 0, Limit.of(1000))).hasSizeGreaterThanOrEqualTo(AUTORES);
+    }
+}
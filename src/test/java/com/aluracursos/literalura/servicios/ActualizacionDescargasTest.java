@@ -0,0 +1,129 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.Libro;
+import com.aluracursos.literalura.principal.Principal;
+import com.aluracursos.literalura.repository.LibroRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Los libros de prueba usan gutendex_id altos y el checkpoint arranca justo debajo, así no se mezclan con el catálogo.
+@SpringBootTest
+@Transactional
+class ActualizacionDescargasTest {
+    private static final long PRIMER_ID = 900_000_001L;
+    private static final int LIBROS = 5;
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RankingDescargas rankingDescargas;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @TempDir
+    Path directorio;
+
+    private HttpServer servidor;
+    private String base;
+    private final Map<Long, Integer> descargasRemotas = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void preparar() throws IOException {
+        for (int i = 0; i < LIBROS; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Libro para actualizar " + i);
+            libro.setTituloNormalizado("libro para actualizar " + i);
+            libro.setDescargas(100);
+            libro.setGutendexId(PRIMER_ID + i);
+            libroRepository.saveAndFlush(libro);
+            descargasRemotas.put(PRIMER_ID + i, 100);
+        }
+        Files.writeString(directorio.resolve("actualizacion.checkpoint"), String.valueOf(PRIMER_ID - 1));
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books/";
+        servidor.createContext("/books/", intercambio -> {
+            String ids = intercambio.getRequestURI().getQuery().substring("ids=".length());
+            String resultados = Arrays.stream(ids.split(","))
+                    .map(Long::valueOf)
+                    .filter(descargasRemotas::containsKey)
+                    .map(id -> "{\"id\":" + id + ",\"title\":\"x\",\"download_count\":" + descargasRemotas.get(id) + "}")
+                    .collect(Collectors.joining(","));
+            byte[] cuerpo = ("{\"count\":0,\"next\":null,\"results\":[" + resultados + "]}").getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void actualizaSoloLasFilasQueCambiaron() {
+        descargasRemotas.put(PRIMER_ID + 1, 250);
+        descargasRemotas.put(PRIMER_ID + 3, 7);
+
+        ActualizacionDescargas.ResultadoActualizacion resultado = nuevaActualizacion(2, Duration.ofMinutes(1)).actualizar();
+
+        assertThat(resultado.revisados()).isEqualTo(LIBROS);
+        assertThat(resultado.actualizados()).isEqualTo(2);
+        assertThat(resultado.completa()).isTrue();
+        assertThat(descargasGuardadas()).containsExactly(100, 250, 100, 7, 100);
+        assertThat(directorio.resolve("actualizacion.checkpoint")).doesNotExist();
+    }
+
+    @Test
+    void alAgotarElTiempoGuardaHastaDondeLlego() throws IOException {
+        ActualizacionDescargas.ResultadoActualizacion resultado = nuevaActualizacion(2, Duration.ZERO).actualizar();
+
+        assertThat(resultado.revisados()).isZero();
+        assertThat(resultado.completa()).isFalse();
+        assertThat(Files.readString(directorio.resolve("actualizacion.checkpoint"))).isEqualTo(String.valueOf(PRIMER_ID - 1));
+    }
+
+    private ActualizacionDescargas nuevaActualizacion(int tamanoVentana, Duration duracionMaxima) {
+        return new ActualizacionDescargas(jdbcTemplate, new ConsumoAPI(), new ConvierteDatos(), rankingDescargas, eventos,
+                base, tamanoVentana, duracionMaxima, directorio.resolve("actualizacion.checkpoint").toString(), true);
+    }
+
+    private List<Integer> descargasGuardadas() {
+        return jdbcTemplate.queryForList("SELECT descargas FROM libro WHERE gutendex_id >= ? ORDER BY gutendex_id",
+                Integer.class, PRIMER_ID);
+    }
+}
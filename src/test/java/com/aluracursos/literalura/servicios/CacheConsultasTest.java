@@ -0,0 +1,87 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.principal.Principal;
+import com.aluracursos.literalura.repository.LibroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin @Transactional: dentro de una transacción con escrituras Hibernate no sirve resultados de la caché de consultas.
+@SpringBootTest(properties = "literalura.estadisticas-hibernate=true")
+class CacheConsultasTest {
+    private static final String TITULO = "Cache consultas entidad";
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private CacheConsultas cacheConsultas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics estadisticas;
+
+    @AfterEach
+    void borrar() {
+        jdbcTemplate.update("DELETE FROM libro WHERE titulo = ?", TITULO);
+    }
+
+    @BeforeEach
+    void limpiar() {
+        cacheConsultas.invalidar();
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void repetirUnListadoNoVuelveALaBase() {
+        libroRepository.findTopPorDescargas(PageRequest.of(0, 10));
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        libroRepository.findTopPorDescargas(PageRequest.of(0, 10));
+
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(sentencias);
+        assertThat(cacheConsultas.estadisticas().aciertosConsultas()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidarObligaAConsultarDeNuevo() {
+        libroRepository.findIdiomas();
+        cacheConsultas.invalidar();
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        libroRepository.findIdiomas();
+
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(sentencias + 1);
+    }
+
+    @Test
+    void unLoteGuardadoDescartaLosLibrosCacheados() {
+        long id = jdbcTemplate.queryForObject("""
+                INSERT INTO libro (id, titulo, titulo_normalizado) VALUES (nextval('libro_seq'), ?, lower(?)) RETURNING id
+                """, Long.class, TITULO, TITULO);
+        assertThat(libroRepository.findById(id).orElseThrow().getGutendexId()).isNull();
+        jdbcTemplate.update("UPDATE libro SET gutendex_id = ? WHERE id = ?", -id, id);
+
+        cacheConsultas.alGuardarLote(new PersistenciaLotes.LoteGuardado(0));
+
+        assertThat(libroRepository.findById(id).orElseThrow().getGutendexId()).isEqualTo(-id);
+    }
+}
@@ -0,0 +1,261 @@
+package com.aluracursos.literalura.servicios;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Contra un servidor local que responde según un guion: estado, Cache-Control y ETag de cada respuesta.
+class CacheRespuestasTest {
+    private static final ConsumoAPI.Resiliencia SIN_REINTENTOS = new ConsumoAPI.Resiliencia(Duration.ofSeconds(1),
+            Duration.ofSeconds(1), 0, Duration.ofMillis(10), Duration.ofMillis(50), 0, 1, 100, Duration.ofMillis(200));
+    private static final DataSize SIN_TOPE = DataSize.ofMegabytes(1);
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private String url;
+    private final Queue<Respuesta> guion = new ConcurrentLinkedQueue<>();
+    private final Queue<Peticion> peticiones = new ConcurrentLinkedQueue<>();
+    private final MeterRegistry registro = new SimpleMeterRegistry();
+    private ConsumoAPI consumoAPI;
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        hilosServidor = Executors.newFixedThreadPool(4);
+        servidor.setExecutor(hilosServidor);
+        url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books/";
+        servidor.createContext("/books/", this::responder);
+        servidor.start();
+        consumoAPI = new ConsumoAPI(4, registro, SIN_REINTENTOS);
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        consumoAPI.cerrar();
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+
+    @Test
+    void laClaveOrdenaLosParametrosYPasaTodoAMinusculas() {
+        assertThat(CacheRespuestas.normalizarUrl("HTTP://Gutendex.COM/books/?search=Don%20Quijote&languages=ES"))
+                .isEqualTo("http://gutendex.com/books/?languages=es&search=don+quijote");
+        assertThat(CacheRespuestas.normalizarUrl("http://gutendex.com/books/?languages=es&&search=don+QUIJOTE"))
+                .isEqualTo(CacheRespuestas.normalizarUrl("http://gutendex.com/books/?search=Don%20Quijote&languages=ES"));
+        assertThat(CacheRespuestas.normalizarUrl("http://gutendex.com")).isEqualTo("http://gutendex.com/");
+    }
+
+    @Test
+    void dosUrlsConLaMismaClaveHacenUnaSolaLlamada() {
+        CacheRespuestas cache = nuevaCache(8, Duration.ofMinutes(10), null);
+
+        cache.obtenerDatos(url + "?search=Quijote&languages=es");
+        cache.obtenerDatos(url + "?languages=ES&search=quijote");
+
+        assertThat(peticiones).hasSize(1);
+        assertThat(cache.estadisticas().aciertos()).isEqualTo(1);
+    }
+
+    @Test
+    void elMaxAgeDeLaRespuestaManda() {
+        CacheRespuestas cache = nuevaCache(8, Duration.ofMinutes(10), null);
+        guion.add(new Respuesta(200, "max-age=0", null));
+
+        cache.obtenerDatos(url + "?search=a");
+        cache.obtenerDatos(url + "?search=a");
+        assertThat(peticiones).hasSize(2);
+
+        CacheRespuestas sinTtl = nuevaCache(8, Duration.ZERO, null);
+        guion.add(new Respuesta(200, "public, max-age=3600", null));
+
+        sinTtl.obtenerDatos(url + "?search=b");
+        sinTtl.obtenerDatos(url + "?search=b");
+        assertThat(peticiones).hasSize(3);
+    }
+
+    @Test
+    void unaEntradaVencidaSeRevalidaConSuEtag() {
+        CacheRespuestas cache = nuevaCache(8, Duration.ofMinutes(10), null);
+        guion.add(new Respuesta(200, "max-age=0", "\"v1\""));
+        guion.add(new Respuesta(304, "max-age=3600", null));
+
+        String primera = cache.obtenerDatos(url + "?search=etag");
+        String revalidada = cache.obtenerDatos(url + "?search=etag");
+        String cacheada = cache.obtenerDatos(url + "?search=etag");
+
+        assertThat(revalidada).isEqualTo(primera);
+        assertThat(cacheada).isEqualTo(primera);
+        assertThat(peticiones.stream().map(Peticion::etag).toList()).containsExactly(null, "\"v1\"");
+        CacheRespuestas.EstadisticasCache estadisticas = cache.estadisticas();
+        assertThat(estadisticas.revalidaciones()).isEqualTo(1);
+        assertThat(estadisticas.aciertos()).isEqualTo(1);
+        assertThat(estadisticas.fallos()).isEqualTo(1);
+    }
+
+    @Test
+    void sinLugarSaleLaEntradaUsadaHaceMasTiempo() {
+        CacheRespuestas cache = nuevaCache(2, Duration.ofMinutes(10), null);
+
+        cache.obtenerDatos(url + "?page=1");
+        cache.obtenerDatos(url + "?page=2");
+        cache.obtenerDatos(url + "?page=1");
+        cache.obtenerDatos(url + "?page=3");
+        cache.obtenerDatos(url + "?page=1");
+        cache.obtenerDatos(url + "?page=2");
+
+        assertThat(peticiones.stream().map(Peticion::consulta).toList())
+                .containsExactly("page=1", "page=2", "page=3", "page=2");
+        assertThat(cache.estadisticas().entradas()).isEqualTo(2);
+    }
+
+    @Test
+    void elDiscoSobreviveAUnaNuevaInstancia() {
+        nuevaCache(8, Duration.ofMinutes(10), directorio).obtenerDatos(url + "?search=disco");
+
+        CacheRespuestas reiniciada = nuevaCache(8, Duration.ofMinutes(10), directorio);
+        String cuerpo = reiniciada.obtenerDatos(url + "?search=disco");
+
+        assertThat(cuerpo).isEqualTo("cuerpo /books/?search=disco");
+        assertThat(peticiones).hasSize(1);
+        assertThat(reiniciada.estadisticas().aciertosDisco()).isEqualTo(1);
+    }
+
+    @Test
+    void unaEntradaVencidaEnDiscoNoCuentaComoAcierto() {
+        guion.add(new Respuesta(200, "max-age=0", "\"v1\""));
+        nuevaCache(8, Duration.ofMinutes(10), directorio).obtenerDatos(url + "?search=vieja");
+        guion.add(new Respuesta(304, null, null));
+
+        CacheRespuestas reiniciada = nuevaCache(8, Duration.ofMinutes(10), directorio);
+        reiniciada.obtenerDatos(url + "?search=vieja");
+
+        assertThat(reiniciada.estadisticas().aciertosDisco()).isZero();
+        assertThat(reiniciada.estadisticas().revalidaciones()).isEqualTo(1);
+    }
+
+    @Test
+    void alArrancarBorraLasVencidasYLosTemporales() throws IOException {
+        guion.add(new Respuesta(200, "max-age=0", null));
+        nuevaCache(8, Duration.ofMinutes(10), directorio).obtenerDatos(url + "?search=vencida");
+        Files.writeString(directorio.resolve("huerfano.cache123.tmp"), "a medio escribir");
+
+        new CacheRespuestas(consumoAPI, 8, Duration.ofMinutes(10), Duration.ZERO, directorio.toString(), SIN_TOPE, registro);
+
+        assertThat(archivos()).isEmpty();
+    }
+
+    @Test
+    void elDiscoNoPasaDelTope() throws IOException {
+        CacheRespuestas cache = new CacheRespuestas(consumoAPI, 8, Duration.ofMinutes(10), Duration.ofDays(1),
+                directorio.toString(), DataSize.ofBytes(200), registro);
+
+        for (int i = 0; i < 10; i++) {
+            cache.obtenerDatos(url + "?page=" + i);
+        }
+
+        assertThat(archivos()).isNotEmpty().hasSizeLessThan(10);
+        long bytes = 0;
+        for (Path archivo : archivos()) {
+            bytes += Files.size(archivo);
+        }
+        assertThat(bytes).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void siLaApiFallaDevuelveLaEntradaVencida() {
+        CacheRespuestas cache = nuevaCache(8, Duration.ofMinutes(10), null);
+        guion.add(new Respuesta(200, "max-age=0", null));
+        guion.add(new Respuesta(503, null, null));
+        guion.add(new Respuesta(404, null, null));
+        guion.add(new Respuesta(503, null, null));
+
+        String original = cache.obtenerDatos(url + "?search=respaldo");
+
+        assertThat(cache.obtenerDatos(url + "?search=respaldo")).isEqualTo(original);
+        assertThat(cache.estadisticas().respaldos()).isEqualTo(1);
+        assertThatThrownBy(() -> cache.obtenerDatos(url + "?search=respaldo")).isInstanceOf(ApiNoDisponibleException.class);
+        assertThatThrownBy(() -> cache.obtenerDatos(url + "?search=sin-respaldo")).isInstanceOf(ApiNoDisponibleException.class);
+    }
+
+    @Test
+    void lasEstadisticasSePublicanEnElRegistro() {
+        CacheRespuestas cache = nuevaCache(8, Duration.ofMinutes(10), null);
+
+        cache.obtenerDatos(url + "?search=metricas");
+        cache.obtenerDatos(url + "?search=metricas");
+        cache.obtenerDatos(url + "?search=metricas");
+
+        assertThat(registro.get("literalura.cache.respuestas").tag("resultado", "acierto").functionCounter().count())
+                .isEqualTo(2.0);
+        assertThat(registro.get("literalura.cache.respuestas").tag("resultado", "fallo").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(registro.get("literalura.cache.respuestas.entradas").gauge().value()).isEqualTo(1.0);
+    }
+
+    private CacheRespuestas nuevaCache(int capacidad, Duration ttl, Path directorio) {
+        return new CacheRespuestas(consumoAPI, capacidad, ttl, Duration.ofDays(1),
+                directorio == null ? "" : directorio.toString(), SIN_TOPE, registro);
+    }
+
+    private List<Path> archivos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.toList();
+        }
+    }
+
+    private void responder(HttpExchange intercambio) throws IOException {
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        peticiones.add(new Peticion(consulta, intercambio.getRequestHeaders().getFirst("If-None-Match")));
+        Respuesta respuesta = guion.poll();
+        if (respuesta == null) {
+            respuesta = new Respuesta(200, null, null);
+        }
+        if (respuesta.cacheControl() != null) {
+            intercambio.getResponseHeaders().add("Cache-Control", respuesta.cacheControl());
+        }
+        if (respuesta.etag() != null) {
+            intercambio.getResponseHeaders().add("ETag", respuesta.etag());
+        }
+        if (respuesta.estado() == 304) {
+            intercambio.sendResponseHeaders(304, -1);
+            intercambio.close();
+            return;
+        }
+        byte[] cuerpo = ("cuerpo " + intercambio.getRequestURI()).getBytes(StandardCharsets.UTF_8);
+        intercambio.sendResponseHeaders(respuesta.estado(), cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    private record Respuesta(int estado, String cacheControl, String etag) {
+    }
+
+    private record Peticion(String consulta, String etag) {
+    }
+}
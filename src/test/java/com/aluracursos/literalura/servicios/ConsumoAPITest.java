@@ -0,0 +1,182 @@
+package com.aluracursos.literalura.servicios;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Contra un servidor local que responde según una lista de fallas: un código de estado o una demora.
+class ConsumoAPITest {
+    private static final ConsumoAPI.Resiliencia RAPIDA = new ConsumoAPI.Resiliencia(Duration.ofSeconds(1),
+            Duration.ofMillis(300), 2, Duration.ofMillis(10), Duration.ofMillis(50), 0, 1, 3, Duration.ofMillis(200));
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private String url;
+    private final Queue<Falla> fallas = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger llamadas = new AtomicInteger();
+    private ConsumoAPI consumoAPI;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        hilosServidor = Executors.newFixedThreadPool(8);
+        servidor.setExecutor(hilosServidor);
+        url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books/";
+        servidor.createContext("/books/", this::responder);
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        if (consumoAPI != null) {
+            consumoAPI.cerrar();
+        }
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+
+    @Test
+    void reintentaLos5xxYLos429HastaObtenerRespuesta() {
+        fallas.add(new Falla(503, 0));
+        fallas.add(new Falla(429, 0));
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, RAPIDA);
+
+        assertThat(consumoAPI.obtenerDatos(url)).isEqualTo("ok");
+        assertThat(llamadas).hasValue(3);
+    }
+
+    @Test
+    void noReintentaLos4xxYLosInformaConSuEstado() {
+        fallas.add(new Falla(404, 0));
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, RAPIDA);
+
+        assertThatThrownBy(() -> consumoAPI.obtenerDatos(url))
+                .isInstanceOfSatisfying(ApiNoDisponibleException.class, e -> assertThat(e.getEstado()).isEqualTo(404));
+        assertThat(llamadas).hasValue(1);
+    }
+
+    @Test
+    void cortaLasRespuestasQueNoLleganAntesDelTimeout() {
+        for (int i = 0; i < 3; i++) {
+            fallas.add(new Falla(200, 2_000));
+        }
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, RAPIDA);
+        long inicio = System.nanoTime();
+
+        assertThatThrownBy(() -> consumoAPI.obtenerDatos(url)).isInstanceOf(ApiNoDisponibleException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(1_900));
+        assertThat(llamadas).hasValue(3);
+    }
+
+    @Test
+    void abreElCircuitoYLoCierraCuandoLaPruebaSaleBien() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            fallas.add(new Falla(500, 0));
+        }
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, RAPIDA);
+
+        assertThatThrownBy(() -> consumoAPI.obtenerDatos(url)).isInstanceOf(ApiNoDisponibleException.class);
+        assertThat(llamadas).hasValue(3);
+        assertThatThrownBy(() -> consumoAPI.obtenerDatos(url))
+                .isInstanceOfSatisfying(ApiNoDisponibleException.class, e -> assertThat(e.getEstado()).isEqualTo(-1));
+        assertThat(llamadas).hasValue(3);
+
+        Thread.sleep(250);
+        assertThat(consumoAPI.obtenerDatos(url)).isEqualTo("ok");
+        assertThat(consumoAPI.obtenerDatos(url)).isEqualTo("ok");
+        assertThat(llamadas).hasValue(5);
+    }
+
+    @Test
+    void unaSolaLlamadaParaPeticionesIgualesEnCurso() {
+        fallas.add(new Falla(200, 200));
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, RAPIDA);
+
+        List<CompletableFuture<String>> respuestas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            respuestas.add(consumoAPI.obtenerDatosAsync(url));
+        }
+        respuestas.add(CompletableFuture.supplyAsync(() -> consumoAPI.obtenerDatos(url)));
+
+        assertThat(respuestas).allSatisfy(respuesta -> assertThat(respuesta.join()).isEqualTo("ok"));
+        assertThat(llamadas).hasValue(1);
+    }
+
+    @Test
+    void elFlujoAbiertoOcupaUnLugarHastaQueSeCierra() throws IOException {
+        consumoAPI = new ConsumoAPI(1, Metrics.globalRegistry, RAPIDA);
+
+        InputStream flujo = consumoAPI.obtenerFlujo(url + "?flujo");
+        CompletableFuture<String> asincrona = consumoAPI.obtenerDatosAsync(url + "?asincrona");
+        CompletableFuture<String> sincrona = CompletableFuture.supplyAsync(() -> consumoAPI.obtenerDatos(url + "?sincrona"));
+
+        assertThat(asincrona.completeOnTimeout("esperando", 200, TimeUnit.MILLISECONDS).join()).isEqualTo("esperando");
+        assertThat(sincrona.isDone()).isFalse();
+        assertThat(llamadas).hasValue(1);
+
+        flujo.close();
+        assertThat(sincrona.join()).isEqualTo("ok");
+    }
+
+    @Test
+    void elLimiteDeTasaEspaciaLasLlamadas() {
+        consumoAPI = new ConsumoAPI(4, Metrics.globalRegistry, new ConsumoAPI.Resiliencia(Duration.ofSeconds(1),
+                Duration.ofSeconds(1), 0, Duration.ofMillis(10), Duration.ofMillis(50), 20, 1, 3, Duration.ofSeconds(1)));
+        long inicio = System.nanoTime();
+
+        for (int i = 0; i < 6; i++) {
+            consumoAPI.obtenerDatos(url + "?page=" + i);
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(Duration.ofMillis(240));
+    }
+
+    private void responder(HttpExchange intercambio) throws IOException {
+        llamadas.incrementAndGet();
+        Falla falla = fallas.poll();
+        int estado = falla == null ? 200 : falla.estado();
+        if (falla != null && falla.demoraMillis() > 0) {
+            try {
+                Thread.sleep(falla.demoraMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] cuerpo = (estado == 200 ? "ok" : "error " + estado).getBytes(StandardCharsets.UTF_8);
+        if (estado == 429) {
+            intercambio.getResponseHeaders().add("Retry-After", "0");
+        }
+        try {
+            intercambio.sendResponseHeaders(estado, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } catch (IOException ignorada) {
+            // El cliente ya cortó por timeout.
+        }
+    }
+
+    private record Falla(int estado, int demoraMillis) {
+    }
+}
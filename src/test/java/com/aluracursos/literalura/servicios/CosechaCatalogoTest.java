@@ -0,0 +1,104 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CosechaCatalogoTest {
+    private static final int PAGINAS = 3;
+
+    @TempDir
+    Path directorio;
+
+    private HttpServer servidor;
+    private String base;
+    private final AtomicBoolean fallarPagina2 = new AtomicBoolean();
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books/";
+        servidor.createContext("/books/", intercambio -> {
+            String consulta = intercambio.getRequestURI().getQuery();
+            int pagina = consulta == null ? 1 : Integer.parseInt(consulta.substring("page=".length()));
+            String cuerpo = pagina == 2 && fallarPagina2.get() ? "error interno" : pagina(pagina);
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(200, bytes.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(bytes);
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void recorreTodasLasPaginasSiguiendoElEnlaceNext() {
+        List<DatosLibros> guardados = new ArrayList<>();
+        CosechaCatalogo cosecha = nuevaCosecha(guardados);
+
+        CosechaCatalogo.ResultadoCosecha resultado = cosecha.cosechar(base);
+
+        assertThat(resultado.paginas()).isEqualTo(PAGINAS);
+        assertThat(resultado.libros()).isEqualTo(PAGINAS * 2);
+        assertThat(guardados).extracting(DatosLibros::titulo)
+                .containsExactly("Libro 1-1", "Libro 1-2", "Libro 2-1", "Libro 2-2", "Libro 3-1", "Libro 3-2");
+        assertThat(directorio.resolve("cosecha.checkpoint")).doesNotExist();
+    }
+
+    @Test
+    void reanudaDesdeLaUltimaPaginaGuardada() throws IOException {
+        List<DatosLibros> guardados = new ArrayList<>();
+        CosechaCatalogo cosecha = nuevaCosecha(guardados);
+
+        fallarPagina2.set(true);
+        assertThatThrownBy(() -> cosecha.cosechar(base)).isInstanceOf(RuntimeException.class);
+        assertThat(guardados).extracting(DatosLibros::titulo).containsExactly("Libro 1-1", "Libro 1-2");
+        assertThat(Files.readString(directorio.resolve("cosecha.checkpoint"))).isEqualTo(base + "?page=2");
+
+        fallarPagina2.set(false);
+        CosechaCatalogo.ResultadoCosecha resultado = cosecha.cosechar(base);
+
+        assertThat(resultado.paginas()).isEqualTo(2);
+        assertThat(guardados).hasSize(PAGINAS * 2);
+    }
+
+    private CosechaCatalogo nuevaCosecha(List<DatosLibros> guardados) {
+        IPersistenciaLotes persistencia = libros -> {
+            guardados.addAll(libros);
+            return libros.size();
+        };
+        return new CosechaCatalogo(new ConsumoAPI(), new ConvierteDatos(), persistencia,
+                directorio.resolve("cosecha.checkpoint").toString(), 2, 1);
+    }
+
+    private String pagina(int numero) {
+        String siguiente = numero < PAGINAS ? "\"" + base + "?page=" + (numero + 1) + "\"" : "null";
+        return """
+                {"count": %d, "next": %s, "previous": null, "results": [
+                  {"id": %d, "title": "Libro %d-1", "authors": [{"name": "Autor %d", "birth_year": 1800, "death_year": 1850}],
+                   "languages": ["es"], "download_count": 10},
+                  {"id": %d, "title": "Libro %d-2", "authors": [], "languages": ["en"], "download_count": 20}
+                ]}
+                """.formatted(PAGINAS * 2, siguiente, numero * 2 - 1, numero, numero, numero * 2, numero);
+    }
+}
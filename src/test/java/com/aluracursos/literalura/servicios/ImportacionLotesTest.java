@@ -0,0 +1,159 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportacionLotesTest {
+    private static final int PARALELISMO = 3;
+    private static final int TAMANO_LOTE = 4;
+
+    @TempDir
+    Path directorio;
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private String base;
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicInteger maximoEnCurso = new AtomicInteger();
+    private final List<DatosLibros> guardados = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> lotes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        hilosServidor = Executors.newFixedThreadPool(8);
+        servidor.setExecutor(hilosServidor);
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/books/";
+        servidor.createContext("/books/", intercambio -> {
+            peticiones.incrementAndGet();
+            maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String titulo = URLDecoder.decode(intercambio.getRequestURI().getRawQuery().substring("search=".length()), StandardCharsets.UTF_8);
+            String cuerpo = switch (titulo) {
+                case "inexistente" -> "{\"count\": 0, \"next\": null, \"results\": []}";
+                case "roto" -> "error interno";
+                default -> """
+                        {"count": 1, "next": null, "results": [
+                          {"id": 1, "title": "%s", "authors": [{"name": "Autor de %s"}], "languages": ["es"], "download_count": 5}
+                        ]}
+                        """.formatted(titulo, titulo);
+            };
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            enCurso.decrementAndGet();
+            intercambio.sendResponseHeaders(200, bytes.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(bytes);
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+
+    @Test
+    void importaCadaTituloEnLotesSinSuperarElParalelismo() throws IOException {
+        List<String> titulos = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            titulos.add("Libro número " + i);
+        }
+        List<String> lineas = new ArrayList<>(titulos);
+        lineas.add(3, "");
+        lineas.add(0, "# comentario");
+        Path archivo = Files.write(directorio.resolve("titulos.txt"), lineas, StandardCharsets.UTF_8);
+
+        ImportacionLotes.ResultadoImportacion resultado = nuevaImportacion().importarTitulos(archivo);
+
+        assertThat(resultado.leidos()).isEqualTo(10);
+        assertThat(resultado.encontrados()).isEqualTo(10);
+        assertThat(resultado.insertados()).isEqualTo(10);
+        assertThat(guardados).extracting(DatosLibros::titulo).containsExactlyInAnyOrderElementsOf(titulos);
+        assertThat(lotes).containsExactly(4, 4, 2);
+        assertThat(maximoEnCurso.get()).isLessThanOrEqualTo(PARALELISMO);
+    }
+
+    @Test
+    void cuentaLosTitulosSinResultadoYLosQueFallan() throws IOException {
+        Path archivo = Files.write(directorio.resolve("titulos.txt"), List.of("Don Quijote", "inexistente", "roto"));
+
+        ImportacionLotes.ResultadoImportacion resultado = nuevaImportacion().importarTitulos(archivo);
+
+        assertThat(resultado.leidos()).isEqualTo(3);
+        assertThat(resultado.encontrados()).isEqualTo(1);
+        assertThat(resultado.fallidos()).isEqualTo(1);
+        assertThat(guardados).extracting(DatosLibros::titulo).containsExactly("Don Quijote");
+    }
+
+    @Test
+    void importaJsonLinesYArreglosSinConsultarLaApi() throws IOException {
+        Path lineas = Files.writeString(directorio.resolve("libros.jsonl"), """
+                {"title": "Uno", "authors": [{"name": "A"}], "languages": ["es"], "download_count": 1}
+                {"title": "Dos", "authors": [], "languages": ["en"], "download_count": 2}
+                """);
+        Path arreglo = Files.writeString(directorio.resolve("libros.json"), """
+                [{"title": "Tres", "languages": ["fr"]}, {"title": "Cuatro"}]
+                """);
+        ImportacionLotes importacion = nuevaImportacion();
+
+        assertThat(importacion.importarJson(lineas).leidos()).isEqualTo(2);
+        assertThat(importacion.importarJson(arreglo).insertados()).isEqualTo(2);
+        assertThat(guardados).extracting(DatosLibros::titulo).containsExactly("Uno", "Dos", "Tres", "Cuatro");
+        assertThat(maximoEnCurso.get()).isZero();
+    }
+
+    @Test
+    void unErrorAlGuardarDetieneLasDemasEtapas() throws IOException {
+        List<String> titulos = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            titulos.add("Libro número " + i);
+        }
+        Path archivo = Files.write(directorio.resolve("titulos.txt"), titulos, StandardCharsets.UTF_8);
+        IPersistenciaLotes persistencia = libros -> {
+            throw new IllegalStateException("Base no disponible");
+        };
+        ImportacionLotes importacion = new ImportacionLotes(new ConsumoAPI(), new ConvierteDatos(), persistencia, base, PARALELISMO, TAMANO_LOTE);
+
+        assertThatThrownBy(() -> importacion.importarTitulos(archivo))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Base no disponible");
+        // Las colas acotadas frenan la lectura del archivo: no se llega a buscar todos los títulos.
+        assertThat(peticiones.get()).isLessThan(titulos.size());
+    }
+
+    private ImportacionLotes nuevaImportacion() {
+        IPersistenciaLotes persistencia = libros -> {
+            lotes.add(libros.size());
+            guardados.addAll(libros);
+            return libros.size();
+        };
+        return new ImportacionLotes(new ConsumoAPI(), new ConvierteDatos(), persistencia, base, PARALELISMO, TAMANO_LOTE);
+    }
+}
@@ -0,0 +1,101 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.repository.LibroRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceInvertidoTest {
+    private final LibroRepository libroRepository = mock(LibroRepository.class);
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void cadaTerminoValeComoPrefijoYDebenAparecerTodos() {
+        IndiceInvertido indice = nuevoIndice();
+        indice.agregar(libro(1, "Don Quijote de la Mancha", "Cervantes, Miguel de", 10));
+        indice.agregar(libro(2, "Novelas ejemplares", "Cervantes, Miguel de", 20));
+        indice.agregar(libro(3, "Don Juan Tenorio", "Zorrilla, José", 30));
+
+        assertThat(indice.buscar("quij cerv", 10)).extracting(LibroResumen::id).containsExactly(1L);
+        assertThat(indice.buscar("don", 10)).extracting(LibroResumen::id).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(indice.buscar("don ejemplares", 10)).isEmpty();
+    }
+
+    @Test
+    void ordenaPorDescargasYRespetaElLimite() {
+        IndiceInvertido indice = nuevoIndice();
+        indice.agregar(libro(1, "Historia uno", "Autor", 5));
+        indice.agregar(libro(2, "Historia dos", "Autor", 50));
+        indice.agregar(libro(3, "Historia tres", "Autor", null));
+        indice.agregar(libro(4, "Historia cuatro", "Autor", 7));
+
+        assertThat(indice.buscar("historia", 3)).extracting(LibroResumen::id).containsExactly(2L, 4L, 1L);
+    }
+
+    @Test
+    void actualizarDescargasCambiaElOrden() {
+        IndiceInvertido indice = nuevoIndice();
+        indice.agregar(libro(1, "Historia uno", "Autor", 5));
+        indice.agregar(libro(2, "Historia dos", "Autor", 50));
+
+        indice.actualizar(List.of(libro(1, "Historia uno", "Autor", 500), libro(9, "No indexado", "Autor", 1)));
+
+        assertThat(indice.buscar("historia", 10)).extracting(LibroResumen::id).containsExactly(1L, 2L);
+        assertThat(indice.buscar("indexado", 10)).isEmpty();
+    }
+
+    @Test
+    void noIndexaDosVecesElMismoLibro() {
+        IndiceInvertido indice = nuevoIndice();
+
+        assertThat(indice.agregar(libro(1, "Frankenstein", "Shelley, Mary", 1))).isTrue();
+        assertThat(indice.agregar(libro(1, "Frankenstein", "Shelley, Mary", 1))).isFalse();
+        assertThat(indice.buscar("frankenstein", 10)).hasSize(1);
+    }
+
+    @Test
+    void elArchivoGuardadoSeVuelveACargar() {
+        IndiceInvertido original = nuevoIndice();
+        original.agregar(libro(1, "Orgullo y prejuicio", "Austen, Jane", 100));
+        original.agregar(libro(2, "Emma", "Austen, Jane", 40));
+        original.guardarSnapshot();
+        when(libroRepository.countByIdLessThanEqual(2L)).thenReturn(2L);
+
+        IndiceInvertido cargado = nuevoIndice();
+        cargado.run(null);
+
+        assertThat(cargado.buscar("austen", 10)).extracting(LibroResumen::titulo).containsExactly("Orgullo y prejuicio", "Emma");
+        assertThat(cargado.buscar("prej", 10)).extracting(LibroResumen::descargas).containsExactly(100);
+    }
+
+    @Test
+    void descartaElArchivoSiLaBaseYaNoTieneEsosLibros() {
+        IndiceInvertido original = nuevoIndice();
+        original.agregar(libro(1, "Orgullo y prejuicio", "Austen, Jane", 100));
+        original.agregar(libro(2, "Emma", "Austen, Jane", 40));
+        original.guardarSnapshot();
+        when(libroRepository.countByIdLessThanEqual(anyLong())).thenReturn(0L);
+
+        IndiceInvertido cargado = nuevoIndice();
+        cargado.run(null);
+
+        assertThat(cargado.buscar("austen", 10)).isEmpty();
+    }
+
+    private IndiceInvertido nuevoIndice() {
+        return new IndiceInvertido(libroRepository, new NormalizadorTexto(), true, directorio.resolve("indice.snapshot").toString());
+    }
+
+    private static LibroResumen libro(long id, String titulo, String autor, Integer descargas) {
+        return new LibroResumen(id, titulo, autor, null, null, "es", descargas);
+    }
+}
@@ -0,0 +1,66 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LectorCatalogoCsvTest {
+    private static final String CATALOGO = """
+            Text#,Type,Issued,Title,Language,Authors,Subjects,LoCC,Bookshelves\r
+            1,Text,1971-12-01,The Declaration of Independence of the United States of America,en,"Jefferson, Thomas, 1743-1826",United States -- History,E201,Politics\r
+            2,Sound,2003-01-01,Un audiolibro,en,"Nadie, 1900-1950",,,\r
+            3,Text,2004-05-01,"Cien años de soledad:\r
+            Edición ""especial""","es; en","García Márquez, Gabriel, 1927?-2014; Rojas, Ana, 1950- [Illustrator]; Anónimo",,,\r
+            4,Text,2005-01-01,Metamorphoses,la,"Ovid, 43 BCE-17? BCE",,,
+            """;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void convierteLosRegistrosDeTextoEnDatosLibros() throws IOException {
+        List<DatosLibros> libros = leer(new LectorCatalogoCsv());
+
+        assertThat(libros).extracting(DatosLibros::titulo).containsExactly(
+                "The Declaration of Independence of the United States of America",
+                "Cien años de soledad: Edición \"especial\"",
+                "Metamorphoses");
+        assertThat(libros).extracting(DatosLibros::gutendexId).containsExactly(1L, 3L, 4L);
+        assertThat(libros.get(0).autor()).containsExactly(new DatosAutor("Jefferson, Thomas", 1743, 1826));
+        assertThat(libros.get(1).idioma()).containsExactly("es", "en");
+        assertThat(libros.get(1).autor()).containsExactly(
+                new DatosAutor("García Márquez, Gabriel", 1927, 2014),
+                new DatosAutor("Anónimo", null, null));
+        assertThat(libros.get(2).autor()).containsExactly(new DatosAutor("Ovid", -43, -17));
+    }
+
+    @Test
+    void unaVentanaChicaPartiendoRegistrosDaElMismoResultado() throws IOException {
+        assertThat(leer(new LectorCatalogoCsv(7))).isEqualTo(leer(new LectorCatalogoCsv()));
+    }
+
+    @Test
+    void rechazaUnArchivoQueNoEsElCatalogo() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("otro.csv"), "a,b,c\n1,2,3\n");
+
+        assertThatThrownBy(() -> new LectorCatalogoCsv().recorrer(archivo, libro -> { }))
+                .isInstanceOf(ConversionDatosException.class);
+    }
+
+    private List<DatosLibros> leer(LectorCatalogoCsv lector) throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("pg_catalog.csv"), CATALOGO, StandardCharsets.UTF_8);
+        List<DatosLibros> libros = new ArrayList<>();
+        assertThat(lector.recorrer(archivo, libros::add)).isEqualTo(4);
+        return libros;
+    }
+}
@@ -0,0 +1,50 @@
+package com.aluracursos.literalura.servicios;
+
+import org.junit.jupiter.api.Test;
+import java.text.Normalizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NormalizadorTextoTest {
+    private final NormalizadorTexto normalizador = new NormalizadorTexto();
+
+    @Test
+    void quitaTildesYPasaAMinusculasComoElMetodoAnterior() {
+        assertThat(normalizador.normalizar("ÁÀÄÂ éèëê ÍÌÏÎ óòöô ÚÙÜÛ")).isEqualTo("aaaa eeee iiii oooo uuuu");
+    }
+
+    @Test
+    void colapsaEspaciosYRecortaLosExtremos() {
+        assertThat(normalizador.normalizar("  Don\t Quijote \n de   la Mancha  ")).isEqualTo("don quijote de la mancha");
+    }
+
+    @Test
+    void quitaDiacriticosFueraDelEspanol() {
+        assertThat(normalizador.normalizar("Ñandú Çà Łódź Øresund")).isEqualTo("nandu ca lodz oresund");
+    }
+
+    @Test
+    void quitaElTrazoDeLasLetrasQueNoSeDescomponen() {
+        assertThat(normalizador.normalizar("Đakovo Ħamrun ǾRESUND ŧ ƀ ƶ ǥ")).isEqualTo("dakovo hamrun oresund t b z g");
+    }
+
+    @Test
+    void compuestoYDescompuestoDanLaMismaClaveFueraDelLatin() {
+        String compuesto = "Tiếng Việt Ελλάδα Йошкар-Ола";
+        String descompuesto = Normalizer.normalize(compuesto, Normalizer.Form.NFD);
+
+        assertThat(normalizador.normalizar(compuesto)).isEqualTo("tieng viet ελλαδα иошкар-ола");
+        assertThat(normalizador.normalizar(descompuesto)).isEqualTo(normalizador.normalizar(compuesto));
+    }
+
+    @Test
+    void recortaSinDejarEspaciosAlFinal() {
+        assertThat(normalizador.normalizar("hola  mundo cruel", 11)).isEqualTo("hola mundo");
+        assertThat(normalizador.normalizar("abcdef", 3)).isEqualTo("abc");
+    }
+
+    @Test
+    void devuelveNullParaNull() {
+        assertThat(normalizador.normalizar(null)).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.principal.Principal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin @Transactional: cada lote corre en su propia transacción, como dos importaciones simultáneas.
+@SpringBootTest
+class PersistenciaLotesTest {
+    private static final String PREFIJO = "Lote concurrente ";
+    private static final int LIBROS = 40;
+    private static final int RONDAS = 5;
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private PersistenciaLotes persistencia;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void borrar() {
+        jdbcTemplate.update("DELETE FROM libro_autor WHERE libro_id IN (SELECT id FROM libro WHERE titulo LIKE ?)", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM libro_idioma WHERE libro_id IN (SELECT id FROM libro WHERE titulo LIKE ?)", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM libro WHERE titulo LIKE ?", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM autor WHERE nombre LIKE ?", PREFIJO + "%");
+    }
+
+    // El título se guarda recortado a 255 caracteres; los dos libros comparten ese comienzo pero no la clave.
+    @Test
+    void titulosLargosConElMismoComienzoSonLibrosDistintos() {
+        String comienzo = PREFIJO + "x".repeat(300);
+        DatosLibros primero = new DatosLibros(comienzo + " primero", List.of(new DatosAutor(PREFIJO + "autora uno", null, null)),
+                List.of("es"), 1, null);
+        DatosLibros segundo = new DatosLibros(comienzo + " segundo", List.of(new DatosAutor(PREFIJO + "autora dos", null, null)),
+                List.of("en"), 2, null);
+
+        assertThat(persistencia.guardarLote(List.of(primero, segundo))).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT a.nombre FROM libro l JOIN libro_autor la ON la.libro_id = l.id JOIN autor a ON a.id = la.autor_id
+                WHERE l.titulo LIKE ? ORDER BY l.titulo_normalizado
+                """, String.class, PREFIJO + "%")).containsExactly(PREFIJO + "autora uno", PREFIJO + "autora dos");
+    }
+
+    // Los dos lotes traen los mismos títulos en orden inverso: si las filas se insertaran en el orden recibido,
+    // cada transacción esperaría por una clave de la otra y Postgres abortaría una por interbloqueo.
+    @Test
+    void lotesConLosMismosTitulosEnOrdenInversoNoSeTraban() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            for (int ronda = 0; ronda < RONDAS; ronda++) {
+                List<DatosLibros> lote = new ArrayList<>();
+                for (int i = 0; i < LIBROS; i++) {
+                    DatosAutor autor = new DatosAutor(PREFIJO + "autor " + ronda + "-" + (i % 5), null, null);
+                    lote.add(new DatosLibros(PREFIJO + ronda + "-" + i, List.of(autor), List.of("es"), i, null));
+                }
+                List<DatosLibros> invertido = new ArrayList<>(lote);
+                Collections.reverse(invertido);
+
+                CountDownLatch largada = new CountDownLatch(1);
+                Future<Integer> primero = hilos.submit(() -> {
+                    largada.await();
+                    return persistencia.guardarLote(lote);
+                });
+                Future<Integer> segundo = hilos.submit(() -> {
+                    largada.await();
+                    return persistencia.guardarLote(invertido);
+                });
+                largada.countDown();
+
+                assertThat(primero.get(30, TimeUnit.SECONDS) + segundo.get(30, TimeUnit.SECONDS)).isEqualTo(LIBROS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM libro WHERE titulo LIKE ?", Long.class, PREFIJO + "%"))
+                .isEqualTo(LIBROS * RONDAS);
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM libro_autor la JOIN libro l ON l.id = la.libro_id WHERE l.titulo LIKE ?
+                """, Long.class, PREFIJO + "%")).isEqualTo(LIBROS * RONDAS);
+    }
+}
@@ -0,0 +1,48 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.LibroResumen;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankingDescargasTest {
+    private final RankingDescargas ranking = new RankingDescargas(null, 3);
+
+    @Test
+    void conservaSoloLosMasDescargadosEnOrden() {
+        for (long id = 1; id <= 10; id++) {
+            ranking.registrar(libro(id, "en", (int) id * 10));
+        }
+        assertThat(ranking.top(3).orElseThrow()).extracting(LibroResumen::id).containsExactly(10L, 9L, 8L);
+        assertThat(ranking.top(2).orElseThrow()).extracting(LibroResumen::id).containsExactly(10L, 9L);
+    }
+
+    @Test
+    void separaPorIdioma() {
+        ranking.registrar(libro(1, "es", 5));
+        ranking.registrar(libro(2, "en", 50));
+        ranking.registrar(libro(3, "es", 7));
+
+        assertThat(ranking.topPorIdioma("es", 3).orElseThrow()).extracting(LibroResumen::id).containsExactly(3L, 1L);
+        assertThat(ranking.topPorIdioma("fr", 3)).isEmpty();
+        assertThat(ranking.top(3).orElseThrow()).extracting(LibroResumen::id).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void actualizaUnLibroYaRegistrado() {
+        ranking.registrar(libro(1, "es", 5));
+        ranking.registrar(libro(2, "es", 7));
+        ranking.registrar(libro(1, "es", 9));
+
+        assertThat(ranking.top(3).orElseThrow()).extracting(LibroResumen::id).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void noRespondeSiSeSuperaLaCapacidad() {
+        assertThat(ranking.top(4)).isEmpty();
+    }
+
+    private static LibroResumen libro(long id, String idioma, int descargas) {
+        return new LibroResumen(id, "Libro " + id, "Autor", null, null, idioma, descargas);
+    }
+}
@@ -0,0 +1,131 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.modelos.Autor;
+import com.aluracursos.literalura.modelos.DatosAutor;
+import com.aluracursos.literalura.modelos.DatosLibros;
+import com.aluracursos.literalura.modelos.LibroResumen;
+import com.aluracursos.literalura.principal.Principal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin @Transactional: cada hilo necesita su propia transacción para que las altas compitan de verdad.
+@SpringBootTest
+class RegistroLibrosTest {
+    private static final String PREFIJO = "Registro concurrente ";
+    private static final int HILOS = 8;
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private RegistroLibros registroLibros;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IndiceInvertido indiceInvertido;
+
+    @Autowired
+    private PersistenciaLotes persistenciaLotes;
+
+    @AfterEach
+    void borrar() {
+        jdbcTemplate.update("DELETE FROM libro_autor WHERE libro_id IN (SELECT id FROM libro WHERE titulo LIKE ?)", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM libro_idioma WHERE libro_id IN (SELECT id FROM libro WHERE titulo LIKE ?)", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM libro WHERE titulo LIKE ?", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM autor WHERE nombre LIKE ?", PREFIJO + "%");
+    }
+
+    @Test
+    void librosDelMismoAutorGuardadosALaVezNoSePierden() throws Exception {
+        DatosAutor autor = new DatosAutor(PREFIJO + "Autora", 1900, 1980);
+        List<DatosLibros> libros = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            libros.add(new DatosLibros(PREFIJO + "libro " + i, List.of(autor), List.of("es"), i, null));
+        }
+
+        List<RegistroLibros.Registro> registros = guardarALaVez(libros);
+
+        assertThat(registros).allSatisfy(registro -> {
+            assertThat(registro.nuevo()).isTrue();
+            assertThat(registro.libro().getAutores()).extracting(Autor::getNombre).containsExactly(autor.nombre());
+        });
+        assertThat(contar("SELECT count(*) FROM libro WHERE titulo LIKE ?")).isEqualTo(HILOS);
+        assertThat(contar("SELECT count(*) FROM autor WHERE nombre LIKE ?")).isEqualTo(1);
+        assertThat(contar("""
+                SELECT count(*) FROM libro_autor la JOIN libro l ON l.id = la.libro_id WHERE l.titulo LIKE ?
+                """)).isEqualTo(HILOS);
+    }
+
+    @Test
+    void elMismoLibroDesdeVariosHilosSeGuardaUnaVez() throws Exception {
+        DatosLibros libro = new DatosLibros(PREFIJO + "repetido", List.of(new DatosAutor(PREFIJO + "Autor", null, null)),
+                List.of("en"), 3, null);
+
+        List<RegistroLibros.Registro> registros = guardarALaVez(Collections.nCopies(HILOS, libro));
+
+        assertThat(registros).filteredOn(RegistroLibros.Registro::nuevo).hasSize(1);
+        assertThat(registros).extracting(registro -> registro.libro().getId()).containsOnly(registros.get(0).libro().getId());
+        assertThat(contar("SELECT count(*) FROM libro WHERE titulo LIKE ?")).isEqualTo(1);
+        // El índice en memoria lo recibe después del commit, una sola vez.
+        assertThat(indiceInvertido.buscar(PREFIJO + "repetido", 10)).hasSize(1);
+    }
+
+    // El catálogo CSV no trae descargas; volver a encontrar el libro desde la API no debe fallar al mostrarlo.
+    @Test
+    void unLibroDelCatalogoSinDescargasSeVuelveAEncontrarDesdeLaApi() {
+        DatosAutor autor = new DatosAutor(PREFIJO + "Autor del catálogo", 1850, 1920);
+        persistenciaLotes.guardarLote(List.of(new DatosLibros(PREFIJO + "del catálogo", List.of(autor), List.of("es"), null, 77L)));
+
+        RegistroLibros.Registro registro = registroLibros.guardarSiNoExiste(
+                new DatosLibros(PREFIJO + "del catálogo", List.of(autor), List.of("es"), 12, 77L));
+        LibroResumen resumen = LibroResumen.de(registro.libro());
+
+        assertThat(registro.nuevo()).isFalse();
+        assertThat(resumen.descargas()).isNull();
+        assertThat(resumen.autor()).isEqualTo(autor.nombre());
+    }
+
+    private List<RegistroLibros.Registro> guardarALaVez(List<DatosLibros> libros) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(libros.size());
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<RegistroLibros.Registro>> pendientes = new ArrayList<>();
+            for (DatosLibros libro : libros) {
+                Callable<RegistroLibros.Registro> guardar = () -> {
+                    largada.await();
+                    return registroLibros.guardarSiNoExiste(libro);
+                };
+                pendientes.add(hilos.submit(guardar));
+            }
+            largada.countDown();
+            List<RegistroLibros.Registro> registros = new ArrayList<>();
+            for (Future<RegistroLibros.Registro> pendiente : pendientes) {
+                registros.add(pendiente.get(30, TimeUnit.SECONDS));
+            }
+            return registros;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private long contar(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class, PREFIJO + "%");
+    }
+}
@@ -0,0 +1,112 @@
+package com.aluracursos.literalura.servicios;
+
+import com.aluracursos.literalura.principal.Principal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RellenoClavesNormalizadasTest {
+    private static final String PREFIJO = "Relleno claves ";
+
+    @MockBean
+    private Principal principal;
+
+    @Autowired
+    private RellenoClavesNormalizadas relleno;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void borrar() {
+        jdbcTemplate.update("DELETE FROM libro WHERE titulo ILIKE ?", PREFIJO + "%");
+        jdbcTemplate.update("DELETE FROM autor WHERE nombre ILIKE ?", PREFIJO + "%");
+    }
+
+    @Test
+    void lasFilasQueChocanRecibenLaClaveConSuId() {
+        insertarLibro(PREFIJO + "Ñandú", "relleno claves nandu");
+        long repiteExistente = insertarLibro("RELLENO CLAVES ÑANDÚ", null);
+        long primera = insertarLibro(PREFIJO + "Óleo", null);
+        long segunda = insertarLibro("relleno claves oleo", null);
+        long autorPrimero = insertarAutor(PREFIJO + "Ana", null);
+        long autorSegundo = insertarAutor("RELLENO CLAVES ANA", null);
+
+        relleno.run(null);
+
+        assertThat(clave("libro", "titulo_normalizado", repiteExistente)).isEqualTo("relleno claves nandu#" + repiteExistente);
+        assertThat(clave("libro", "titulo_normalizado", primera)).isEqualTo("relleno claves oleo");
+        assertThat(clave("libro", "titulo_normalizado", segunda)).isEqualTo("relleno claves oleo#" + segunda);
+        assertThat(clave("autor", "nombre_normalizado", autorPrimero)).isEqualTo("relleno claves ana");
+        assertThat(clave("autor", "nombre_normalizado", autorSegundo)).isEqualTo("relleno claves ana#" + autorSegundo);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM libro WHERE titulo_normalizado IS NULL AND titulo ILIKE ?",
+                Long.class, PREFIJO + "%")).isZero();
+    }
+
+    @Test
+    void rehaceLasClavesGuardadasConLetrasConTrazo() {
+        long libro = insertarLibro(PREFIJO + "Łódź", "relleno claves łodz");
+
+        relleno.run(null);
+
+        assertThat(clave("libro", "titulo_normalizado", libro)).isEqualTo("relleno claves lodz");
+    }
+
+    @Test
+    void rehaceLasClavesGuardadasConTildesFueraDelLatin() {
+        long libro = insertarLibro(PREFIJO + "Việt Ελλάδα", "relleno claves việt ελλάδα");
+        long coreano = insertarLibro(PREFIJO + "한국", "relleno claves 한국");
+
+        relleno.run(null);
+
+        assertThat(clave("libro", "titulo_normalizado", libro)).isEqualTo("relleno claves viet ελλαδα");
+        assertThat(clave("libro", "titulo_normalizado", coreano)).isEqualTo("relleno claves 한국");
+    }
+
+    @Test
+    void dejaFueraLasFilasSinTexto() {
+        long sinNombre = jdbcTemplate.queryForObject(
+                "INSERT INTO autor (id, nombre) VALUES (nextval('autor_seq'), NULL) RETURNING id", Long.class);
+        long conNombre = insertarAutor(PREFIJO + "Nora", null);
+
+        try {
+            relleno.run(null);
+
+            assertThat(clave("autor", "nombre_normalizado", sinNombre)).isNull();
+            assertThat(clave("autor", "nombre_normalizado", conNombre)).isEqualTo("relleno claves nora");
+        } finally {
+            jdbcTemplate.update("DELETE FROM autor WHERE id = ?", sinNombre);
+        }
+    }
+
+    @Test
+    void laClaveConIdEntraEnLaColumna() {
+        String larga = "x".repeat(NormalizadorTexto.LONGITUD_NOMBRE);
+
+        assertThat(RellenoClavesNormalizadas.conId(larga, 12345, NormalizadorTexto.LONGITUD_NOMBRE))
+                .hasSize(NormalizadorTexto.LONGITUD_NOMBRE)
+                .endsWith("#12345");
+    }
+
+    private long insertarLibro(String titulo, String clave) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO libro (id, titulo, titulo_normalizado) VALUES (nextval('libro_seq'), ?, ?) RETURNING id
+                """, Long.class, titulo, clave);
+    }
+
+    private long insertarAutor(String nombre, String clave) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO autor (id, nombre, nombre_normalizado) VALUES (nextval('autor_seq'), ?, ?) RETURNING id
+                """, Long.class, nombre, clave);
+    }
+
+    private String clave(String tabla, String columna, long id) {
+        return jdbcTemplate.queryForObject("SELECT " + columna + " FROM " + tabla + " WHERE id = ?", String.class, id);
+    }
+}